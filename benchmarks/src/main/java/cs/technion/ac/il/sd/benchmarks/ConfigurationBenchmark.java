@@ -0,0 +1,75 @@
+package cs.technion.ac.il.sd.benchmarks;
+
+import cs.technion.ac.il.sd.app.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading configuration files of every {@link Shape} and size, written once per trial to a temporary file.
+ * Reports files per second, and parsing throughput in MB/s as the megabytes counter of {@link Parsed}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ConfigurationBenchmark {
+
+    @Param
+    public Shape shape;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private File file;
+    private double megabytes;
+
+    /**
+     * The megabytes parsed, which JMH reports per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Parsed {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("configuration-" + shape + "-" + size, ".txt");
+        file.deleteOnExit();
+        Shape.write(shape.dependencies(size), file);
+        megabytes = file.length() / 1e6;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public Configuration fromFile(Parsed parsed) {
+        parsed.megabytes += megabytes;
+        return Configuration.fromFile(file);
+    }
+
+    @Benchmark
+    public Configuration fromMappedFile(Parsed parsed) {
+        parsed.megabytes += megabytes;
+        return Configuration.fromMappedFile(file);
+    }
+
+    @Benchmark
+    public Configuration fromFileInParallel(Parsed parsed) {
+        parsed.megabytes += megabytes;
+        return Configuration.fromFileInParallel(file);
+    }
+}
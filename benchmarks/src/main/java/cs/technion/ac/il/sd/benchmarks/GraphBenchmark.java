@@ -0,0 +1,83 @@
+package cs.technion.ac.il.sd.benchmarks;
+
+import cs.technion.ac.il.sd.library.Graph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hot paths of {@link Graph}, over every {@link Shape} and size.
+ * Queries pick their vertices from a fixed sequence of random ones, so every run asks the same questions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class GraphBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param
+    public Shape shape;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private int[][] dependencies;
+    private Graph<Integer, Integer> graph;
+    private int[] from;
+    private int[] to;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dependencies = shape.dependencies(size);
+        graph = Shape.toGraph(dependencies);
+        Random random = new Random(Shape.SEED);
+        from = new int[QUERIES];
+        to = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            from[i] = random.nextInt(size);
+            to[i] = random.nextInt(size);
+        }
+    }
+
+    private int nextQuery() {
+        next = (next + 1) % QUERIES;
+        return next;
+    }
+
+    /**
+     * Builds the whole graph by addEdge, so the score divided by the amount of edges is the cost of one.
+     */
+    @Benchmark
+    public Graph<Integer, Integer> addEdge() {
+        return Shape.toGraph(dependencies);
+    }
+
+    @Benchmark
+    public List<Integer> toposort() {
+        return graph.toposort();
+    }
+
+    @Benchmark
+    public Set<Integer> getAllReachableFrom() {
+        return graph.getAllReachableFrom(from[nextQuery()]);
+    }
+
+    @Benchmark
+    public boolean isReachable() {
+        int q = nextQuery();
+        return graph.isReachable(from[q], to[q]);
+    }
+
+    @Benchmark
+    public Graph<Integer, Integer> copy() {
+        return new Graph<>(graph);
+    }
+}
@@ -0,0 +1,85 @@
+package cs.technion.ac.il.sd.benchmarks;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.PartyApp;
+import cs.technion.ac.il.sd.app.PartyModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * The latency of one RSVP, from the input to the output, of a party of every {@link Shape} and size.
+ * The party is wired by {@link PartyModule}, with an input the benchmark publishes to and an output that keeps the last
+ * attendance it was given. The events are a fixed sequence of random invitees and answers, so the state of the party
+ * keeps changing the same way on every run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PartyEventBenchmark {
+
+    private static final int EVENTS = 4096;
+
+    @Param
+    public Shape shape;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private final List<BiConsumer<String, Optional<Boolean>>> listeners = new ArrayList<>();
+    private volatile Map<String, Attendance> attendance;
+    private String[] names;
+    private List<Optional<Boolean>> answers;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        File file = File.createTempFile("party-" + shape + "-" + size, ".txt");
+        file.deleteOnExit();
+        Shape.write(shape.dependencies(size), file);
+
+        Input input = listeners::add;
+        Output output = a -> attendance = a;
+        Guice.createInjector(new PartyModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Input.class).toInstance(input);
+                bind(Output.class).toInstance(output);
+            }
+        }).getInstance(PartyApp.class).processFile(file);
+        file.delete();
+
+        Random random = new Random(Shape.SEED);
+        names = new String[EVENTS];
+        answers = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            names[i] = Shape.name(random.nextInt(size));
+            int answer = random.nextInt(3);
+            answers.add(answer == 2 ? Optional.empty() : Optional.of(answer == 1));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Attendance> rsvp() {
+        next = (next + 1) % EVENTS;
+        for (BiConsumer<String, Optional<Boolean>> listener : listeners) {
+            listener.accept(names[next], answers.get(next));
+        }
+        return attendance;
+    }
+}
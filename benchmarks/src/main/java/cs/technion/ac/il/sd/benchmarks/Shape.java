@@ -0,0 +1,150 @@
+package cs.technion.ac.il.sd.benchmarks;
+
+import cs.technion.ac.il.sd.library.Graph;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The shapes of dependency graphs the benchmarks run over.
+ * A graph of a shape is given by the dependencies of each vertex: dependencies[v] holds the vertices v depends on, so
+ * there is an edge from each of them to v. Every shape is generated from a fixed seed, so runs are comparable.
+ */
+public enum Shape {
+
+    /** every vertex depends on the one before it */
+    CHAIN {
+        @Override
+        int[][] dependencies(int size, Random random) {
+            int[][] dependencies = new int[size][];
+            dependencies[0] = NONE;
+            for (int v = 1; v < size; v++) {
+                dependencies[v] = new int[]{v - 1};
+            }
+            return dependencies;
+        }
+    },
+
+    /** a tree of fan-out {@value #FAN_OUT}: a few vertices with many dependants each */
+    WIDE_FAN_OUT {
+        @Override
+        int[][] dependencies(int size, Random random) {
+            int[][] dependencies = new int[size][];
+            dependencies[0] = NONE;
+            for (int v = 1; v < size; v++) {
+                dependencies[v] = new int[]{(v - 1) / FAN_OUT};
+            }
+            return dependencies;
+        }
+    },
+
+    /** every vertex depends on up to {@value #MAX_DEPENDENCIES} vertices before it */
+    RANDOM_DAG {
+        @Override
+        int[][] dependencies(int size, Random random) {
+            int[][] dependencies = new int[size][];
+            for (int v = 0; v < size; v++) {
+                dependencies[v] = randomEarlier(v, random);
+            }
+            return dependencies;
+        }
+    },
+
+    /** a random DAG in which one vertex in {@value #CYCLE_EVERY} also depends on a vertex after it */
+    CYCLIC {
+        @Override
+        int[][] dependencies(int size, Random random) {
+            int[][] dependencies = RANDOM_DAG.dependencies(size, random);
+            for (int v = 0; v < size - 1; v++) {
+                if (random.nextInt(CYCLE_EVERY) == 0) {
+                    int[] row = Arrays.copyOf(dependencies[v], dependencies[v].length + 1);
+                    row[row.length - 1] = v + 1 + random.nextInt(Math.min(size - v - 1, WINDOW));
+                    dependencies[v] = row;
+                }
+            }
+            return dependencies;
+        }
+    };
+
+    static final int FAN_OUT = 1000;
+    static final int MAX_DEPENDENCIES = 3;
+    static final int CYCLE_EVERY = 100;
+    /** dependencies are picked near their dependant, so that reachable sets stay far from the whole graph */
+    static final int WINDOW = 64;
+    static final long SEED = 42;
+
+    private static final int[] NONE = new int[0];
+
+    abstract int[][] dependencies(int size, Random random);
+
+    /**
+     * @return - the dependencies of every vertex of a graph of this shape, generated from {@link #SEED}.
+     */
+    public int[][] dependencies(int size) {
+        return dependencies(size, new Random(SEED));
+    }
+
+    private static int[] randomEarlier(int v, Random random) {
+        if (v == 0) {
+            return NONE;
+        }
+        int[] row = new int[1 + random.nextInt(Math.min(v, MAX_DEPENDENCIES))];
+        for (int i = 0; i < row.length; i++) {
+            int d;
+            do {
+                d = v - 1 - random.nextInt(Math.min(v, WINDOW));
+            } while (contains(row, i, d));
+            row[i] = d;
+        }
+        return row;
+    }
+
+    private static boolean contains(int[] row, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (row[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the graph of the given dependencies one addEdge at a time.
+     */
+    public static Graph<Integer, Integer> toGraph(int[][] dependencies) {
+        Graph<Integer, Integer> graph = new Graph<>();
+        for (int v = 0; v < dependencies.length; v++) {
+            graph.addVertex(v, v);
+        }
+        for (int v = 0; v < dependencies.length; v++) {
+            for (int d : dependencies[v]) {
+                graph.addEdge(d, v);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * @return - the name of vertex v in a configuration file.
+     */
+    public static String name(int v) {
+        return "guest" + v;
+    }
+
+    /**
+     * Writes the given dependencies as a configuration file, one invitee per line.
+     */
+    public static void write(int[][] dependencies, File file) throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+            for (int v = 0; v < dependencies.length; v++) {
+                writer.write(name(v));
+                for (int d : dependencies[v]) {
+                    writer.write(", ");
+                    writer.write(name(d));
+                }
+                writer.write('\n');
+            }
+        }
+    }
+}
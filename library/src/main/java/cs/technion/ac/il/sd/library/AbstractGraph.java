@@ -0,0 +1,545 @@
+package cs.technion.ac.il.sd.library;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * The queries shared by {@link Graph} and {@link FrozenGraph}.
+ * Vertices are identified by dense int ids, and the neighbours of a vertex are a range of an int array, so every
+ * traversal here runs over plain arrays.
+ * @param <K> - Key
+ * @param <T> - Data
+ */
+public abstract class AbstractGraph<K,T> {
+
+    /**
+     * The answers kept by {@link #setReachabilityCacheSize(int)}, by pair of ids. Each answer is the count of
+     * removals (for true) or additions (for false) when it was found, shifted left, with the answer in the lowest bit.
+     */
+    private LinkedHashMap<Long, Long> answers;
+
+    /**
+     * Counts of changes to the edges, so kept isReachable answers know when they might be stale.
+     */
+    long additions = 0;
+    long removals = 0;
+
+    AbstractGraph() {
+    }
+
+    /**
+     * @return - one more than the largest id in use.
+     */
+    abstract int idLimit();
+
+    /**
+     * @return - the id of key, or null if there is no such vertex.
+     */
+    abstract Integer idOf(K key);
+
+    /**
+     * @return - the key of id, or null if its vertex was removed.
+     */
+    abstract K keyOf(int id);
+
+    abstract T dataOf(int id);
+
+    /**
+     * The successors of id are successorRow(id)[successorStart(id)..successorEnd(id)).
+     */
+    abstract int[] successorRow(int id);
+    abstract int successorStart(int id);
+    abstract int successorEnd(int id);
+
+    /**
+     * The predecessors of id are predecessorRow(id)[predecessorStart(id)..predecessorEnd(id)).
+     */
+    abstract int[] predecessorRow(int id);
+    abstract int predecessorStart(int id);
+    abstract int predecessorEnd(int id);
+
+    /**
+     * @return - the amount of vertices in the graph.
+     */
+    public abstract int size();
+
+    boolean isVertex(int id) {
+        return keyOf(id) != null;
+    }
+
+    int dout(int id) {
+        return successorEnd(id) - successorStart(id);
+    }
+
+    int din(int id) {
+        return predecessorEnd(id) - predecessorStart(id);
+    }
+
+    public Set<T> getAllReachableFrom(K key) {
+        return getAllReachableFrom(key, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param key - key of vertex.
+     * @param maxDepth - the maximal amount of edges on a path from key.
+     * @return - all the data of vertices reachable from key by at most maxDepth edges, including key itself.
+     */
+    public Set<T> getAllReachableFrom(K key, int maxDepth) {
+        Set<T> reachable = new HashSet<>();
+        traverseFrom(key, maxDepth, reachable::add);
+        return reachable;
+    }
+
+    /**
+     * @param key - key of vertex.
+     * @param predicate - the condition to look for.
+     * @return - the data of one of the nearest vertices reachable from key that satisfies predicate, if there is one.
+     */
+    public Optional<T> findReachableFrom(K key, Predicate<T> predicate) {
+        List<T> found = new ArrayList<>(1);
+        traverseFrom(key, Integer.MAX_VALUE, t -> !predicate.test(t) || !found.add(t));
+        return found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+    }
+
+    /**
+     * Breadth first search from key, visiting every reachable vertex once in order of its distance from key.
+     * @param key - key of vertex to start from.
+     * @param maxDepth - vertices further than this many edges from key are not visited.
+     * @param visitor - called with the data of every visited vertex, key included. Returning false stops the search.
+     */
+    public void traverseFrom(K key, int maxDepth, Predicate<T> visitor) {
+        Integer from = idOf(key);
+        if (from != null) {
+            traverse(from, maxDepth, visitor);
+        }
+    }
+
+    /**
+     * Breadth first search from the vertex of id.
+     * @return - a bitset of the ids that were reached, which are all the reachable ones unless visitor stopped early.
+     */
+    long[] traverse(int from, int maxDepth, Predicate<T> visitor) {
+        long[] traversed = new long[(idLimit() + 63) >>> 6];
+        int[] queue = new int[size()];
+        int head = 0, tail = 0, depth = 0, depthEnd = 1;
+        queue[tail++] = from;
+        traversed[from >>> 6] |= 1L << from;
+        while (head < tail) {
+            if (head == depthEnd) {
+                depth++;
+                depthEnd = tail;
+            }
+            int id = queue[head++];
+            if (!visitor.test(dataOf(id))) {
+                break;
+            }
+            if (depth == maxDepth) {
+                continue;
+            }
+            int[] row = successorRow(id);
+            for (int i = successorStart(id), end = successorEnd(id); i < end; i++) {
+                int s = row[i];
+                if ((traversed[s >>> 6] & 1L << s) == 0) {
+                    traversed[s >>> 6] |= 1L << s;
+                    queue[tail++] = s;
+                }
+            }
+        }
+        return traversed;
+    }
+
+    /**
+     * @return - all the data of vertices in the graph that have in degree of 0.
+     */
+    public LinkedList<T> getSources() {
+        LinkedList<T> sources = new LinkedList<>();
+        for (int id = 0; id < idLimit(); id++) {
+            if (isVertex(id) && din(id) <= 0) {
+                sources.add(dataOf(id));
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * @return - all the data of vertices in the graph that have out degree of 0.
+     */
+    public LinkedList<T> getTargets() {
+        LinkedList<T> targets = new LinkedList<>();
+        for (int id = 0; id < idLimit(); id++) {
+            if (isVertex(id) && dout(id) <= 0) {
+                targets.add(dataOf(id));
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * @return - topological sort apon the graph, or an empty list if the graph has a cycle.
+     */
+    public LinkedList<T> toposort(){
+        int[] inDegree = new int[idLimit()];
+        int[] sorted = kahn(inDegree);
+        LinkedList<T> sort = new LinkedList<>();
+        if(sorted.length < size()){
+            return sort;
+        }
+        for (int id : sorted){
+            sort.addLast(dataOf(id));
+        }
+        return sort;
+    }
+
+    /**
+     * Visits the vertices in topological order, followed by the vertices on or behind a cycle.
+     * @param visitor - called with the data of every vertex.
+     * @return - the data of the vertices that could be sorted, in topological order.
+     */
+    public LinkedList<T> toposort(Consumer<T> visitor){
+        int[] inDegree = new int[idLimit()];
+        LinkedList<T> sort = new LinkedList<>();
+        for (int id : kahn(inDegree)){
+            sort.addLast(dataOf(id));
+        }
+        List<T> unsorted = new LinkedList<>();
+        for (int id = 0; id < idLimit(); id++){
+            if(inDegree[id] > 0){
+                unsorted.add(dataOf(id));
+            }
+        }
+        sort.forEach(visitor);
+        unsorted.forEach(visitor);
+        return sort;
+    }
+
+    /**
+     * Kahn's algorithm, counting down in degrees instead of removing vertices from a copy of the graph.
+     * @param inDegree - filled with the amount of unsorted predecessors of each vertex, by id.
+     * @return - ids of the vertices that are not on or behind a cycle, in topological order.
+     */
+    int[] kahn(int[] inDegree){
+        int[] queue = new int[size()];
+        int head = 0, tail = 0;
+        for (int id = 0; id < idLimit(); id++){
+            inDegree[id] = din(id);
+            if(isVertex(id) && inDegree[id] == 0){
+                queue[tail++] = id;
+            }
+        }
+        while (head < tail){
+            int id = queue[head++];
+            int[] row = successorRow(id);
+            for (int i = successorStart(id), end = successorEnd(id); i < end; i++){
+                if(--inDegree[row[i]] == 0){
+                    queue[tail++] = row[i];
+                }
+            }
+        }
+        return Arrays.copyOf(queue, tail);
+    }
+
+    /**
+     * @return - the data of the vertices of every strongly connected component, in topological order of the
+     * condensation: there is no edge from a component to an earlier one. A graph without cycles has a component for
+     * every vertex.
+     */
+    public List<Set<T>> getStronglyConnectedComponents(){
+        int[] component = new int[idLimit()];
+        int count = tarjan(component);
+        List<Set<T>> components = new ArrayList<>(count);
+        for (int c = 0; c < count; c++){
+            components.add(new HashSet<>());
+        }
+        for (int id = 0; id < idLimit(); id++){
+            if (isVertex(id)){
+                components.get(component[id]).add(dataOf(id));
+            }
+        }
+        return components;
+    }
+
+    /**
+     * @return - the condensation of the graph: a DAG with a vertex for every strongly connected component, keyed by its
+     * index in {@link #getStronglyConnectedComponents()} and holding the data of its vertices, and an edge from a
+     * component to another if there is an edge between their vertices. Its keys are a topological sort of it.
+     */
+    public Graph<Integer, Set<T>> condense(){
+        int[] component = new int[idLimit()];
+        int count = tarjan(component);
+        List<Integer> keys = new ArrayList<>(count);
+        List<Set<T>> data = new ArrayList<>(count);
+        for (int c = 0; c < count; c++){
+            keys.add(c);
+            data.add(new HashSet<>());
+        }
+        int[] memberOffsets = new int[count + 1];
+        for (int id = 0; id < idLimit(); id++){
+            if (isVertex(id)){
+                data.get(component[id]).add(dataOf(id));
+                memberOffsets[component[id] + 1]++;
+            }
+        }
+        for (int c = 0; c < count; c++){
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[memberOffsets[count]];
+        int[] filled = Arrays.copyOf(memberOffsets, count);
+        for (int id = 0; id < idLimit(); id++){
+            if (isVertex(id)){
+                members[filled[component[id]]++] = id;
+            }
+        }
+        int[] offsets = new int[count + 1];
+        int[] successors = new int[16];
+        int[] lastSource = new int[count];
+        Arrays.fill(lastSource, -1);
+        int edges = 0;
+        for (int c = 0; c < count; c++){
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++){
+                int id = members[m];
+                int[] row = successorRow(id);
+                for (int i = successorStart(id), end = successorEnd(id); i < end; i++){
+                    int target = component[row[i]];
+                    if (target != c && lastSource[target] != c){
+                        lastSource[target] = c;
+                        if (edges == successors.length){
+                            successors = Arrays.copyOf(successors, edges * 2);
+                        }
+                        successors[edges++] = target;
+                    }
+                }
+            }
+            offsets[c + 1] = edges;
+        }
+        return Graph.fromAdjacency(keys, data, offsets, successors);
+    }
+
+    /**
+     * @param component - filled with the strongly connected component of every vertex, by id. Components are numbered
+     *                  in topological order of the condensation.
+     * @return - the amount of components.
+     */
+    int tarjan(int[] component){
+        StronglyConnectedComponents components = new StronglyConnectedComponents();
+        int count = components.run(idLimit(), new StronglyConnectedComponents.Edges(){
+            @Override
+            public int[] row(int id){
+                return successorRow(id);
+            }
+
+            @Override
+            public int start(int id){
+                return successorStart(id);
+            }
+
+            @Override
+            public int end(int id){
+                return successorEnd(id);
+            }
+
+            @Override
+            public boolean follows(int id){
+                return isVertex(id);
+            }
+        });
+        Arrays.fill(component, -1);
+        for (int c = 0; c < count; c++){
+            for (int i = components.start(c); i < components.end(c); i++){
+                component[components.member(i)] = c;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param key1 - key of source vertex.
+     * @param key2 - key of target vertex.
+     * @return - true iff there is an edge from key1 to key2.
+     */
+    public boolean doesEdgeExists(K key1, K key2){
+        Integer id1 = idOf(key1);
+        Integer id2 = idOf(key2);
+        if (id1 == null || id2 == null){
+            return false;
+        }
+        int[] row = successorRow(id1);
+        for (int i = successorStart(id1), end = successorEnd(id1); i < end; i++){
+            if (row[i] == id2){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param key - key of vertex.
+     * @return - keys of all the vertices that have an edge into key.
+     */
+    public List<K> getPredecessors(K key){
+        return neighbours(false, idOf(key));
+    }
+
+    /**
+     * @param key - key of vertex.
+     * @return - keys of all the vertices that key has an edge into.
+     */
+    public List<K> getSuccessors(K key){
+        return neighbours(true, idOf(key));
+    }
+
+    /**
+     * @return - an unmodifiable view of the keys of the successors or predecessors of id.
+     */
+    private List<K> neighbours(boolean outgoing, int id){
+        return new AbstractList<K>() {
+            @Override
+            public K get(int index) {
+                if (index >= size()) {
+                    throw new IndexOutOfBoundsException(Integer.toString(index));
+                }
+                return outgoing ? keyOf(successorRow(id)[successorStart(id) + index])
+                        : keyOf(predecessorRow(id)[predecessorStart(id) + index]);
+            }
+
+            @Override
+            public int size() {
+                return outgoing ? dout(id) : din(id);
+            }
+        };
+    }
+
+    /**
+     * @param key1 - key of source vertex.
+     * @param key2 - key of target vertex.
+     * @return - true iff there is a path from key1 to key2.
+     */
+    public boolean isReachable(K key1, K key2){
+        if(key1.equals(key2)){
+            return true;
+        }
+        Integer id1 = idOf(key1);
+        Integer id2 = idOf(key2);
+        if (id1 == null || id2 == null){
+            return false;
+        }
+        if (answers == null){
+            return bidirectionalSearch(id1, id2);
+        }
+        Long pair = (long) id1 << 32 | id2;
+        Long answer = answers.get(pair);
+        if (answer != null && (answer & 1) == 1 && answer >>> 1 == removals){
+            return true;
+        }
+        if (answer != null && (answer & 1) == 0 && answer >>> 1 == additions){
+            return false;
+        }
+        boolean reachable = bidirectionalSearch(id1, id2);
+        answers.put(pair, reachable ? removals << 1 | 1 : additions << 1);
+        return reachable;
+    }
+
+    /**
+     * Keeps the answers of the most recent isReachable queries. A kept answer that there is a path stays valid until
+     * an edge or a vertex is removed, and one that there is no path stays valid until an edge is added.
+     * @param capacity - the maximal amount of kept answers, or 0 to keep none.
+     */
+    public void setReachabilityCacheSize(int capacity){
+        answers = capacity <= 0 ? null : new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Breadth first search from both ends at once, always advancing the side with the smaller frontier by a level,
+     * until the two meet.
+     * @return - true iff there is a path from the vertex of id1 to the vertex of id2.
+     */
+    boolean bidirectionalSearch(int id1, int id2){
+        if (id1 == id2){
+            return true;
+        }
+        Frontier forward = new Frontier(id1);
+        Frontier backward = new Frontier(id2);
+        while (!forward.isEmpty() && !backward.isEmpty()){
+            boolean met = forward.size() <= backward.size()
+                    ? forward.advance(backward, true)
+                    : backward.advance(forward, false);
+            if (met){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One side of a bidirectional search: the vertices it reached and the queue of the ones not yet expanded.
+     */
+    private class Frontier {
+        private final long[] reached = new long[(idLimit() + 63) >>> 6];
+        private int[] queue = new int[16];
+        private int head = 0, tail = 0;
+
+        Frontier(int id) {
+            add(id);
+        }
+
+        boolean isEmpty() {
+            return head == tail;
+        }
+
+        int size() {
+            return tail - head;
+        }
+
+        boolean contains(int id) {
+            return (reached[id >>> 6] & 1L << id) != 0;
+        }
+
+        private void add(int id) {
+            reached[id >>> 6] |= 1L << id;
+            if (tail == queue.length) {
+                queue = Arrays.copyOf(queue, queue.length * 2);
+            }
+            queue[tail++] = id;
+        }
+
+        /**
+         * expands every vertex currently in the queue along successors, or predecessors if not forward.
+         * @return - true iff a vertex reached by other was found.
+         */
+        boolean advance(Frontier other, boolean forward) {
+            int end = tail;
+            while (head < end) {
+                int id = queue[head++];
+                int[] row = forward ? successorRow(id) : predecessorRow(id);
+                int last = forward ? successorEnd(id) : predecessorEnd(id);
+                for (int i = forward ? successorStart(id) : predecessorStart(id); i < last; i++) {
+                    int n = row[i];
+                    if (other.contains(n)) {
+                        return true;
+                    }
+                    if (!contains(n)) {
+                        add(n);
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    public LinkedList<T> getVertices(){
+        LinkedList<T> vertices = new LinkedList<>();
+        for (int id = 0; id < idLimit(); id++){
+            if (isVertex(id)){
+                vertices.add(dataOf(id));
+            }
+        }
+        return vertices;
+    }
+}
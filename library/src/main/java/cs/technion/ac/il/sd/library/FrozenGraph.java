@@ -0,0 +1,261 @@
+package cs.technion.ac.il.sd.library;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of a {@link Graph}, made by {@link Graph#freeze()}.
+ * The adjacency of each direction is kept in compressed sparse rows: the neighbours of id are
+ * targets[offsets[id]..offsets[id + 1]), so queries never touch anything but int arrays.
+ * Ids are the same as in the graph that was frozen. The set of vertices is fixed, but edges can be changed into a new
+ * snapshot with {@link #edit()}.
+ * @param <K> - Key
+ * @param <T> - Data
+ */
+public class FrozenGraph<K,T> extends AbstractGraph<K,T> {
+
+    private final Map<K, Integer> ids;
+    private final K[] keys;
+    private final T[] data;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] inOffsets;
+    private final int[] inTargets;
+
+    @SuppressWarnings("unchecked")
+    FrozenGraph(Graph<K,T> graph) {
+        int count = graph.idLimit();
+        ids = new HashMap<>(graph.ids);
+        keys = (K[]) graph.keys.toArray();
+        data = (T[]) graph.data.toArray();
+        outOffsets = new int[count + 1];
+        inOffsets = new int[count + 1];
+        for (int id = 0; id < count; id++) {
+            outOffsets[id + 1] = outOffsets[id] + graph.dout[id];
+            inOffsets[id + 1] = inOffsets[id] + graph.din[id];
+        }
+        outTargets = new int[outOffsets[count]];
+        inTargets = new int[inOffsets[count]];
+        for (int id = 0; id < count; id++) {
+            System.arraycopy(graph.successors[id], 0, outTargets, outOffsets[id], graph.dout[id]);
+            System.arraycopy(graph.predecessors[id], 0, inTargets, inOffsets[id], graph.din[id]);
+        }
+    }
+
+    private FrozenGraph(FrozenGraph<K,T> base, int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inTargets) {
+        this.ids = base.ids;
+        this.keys = base.keys;
+        this.data = base.data;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inTargets = inTargets;
+    }
+
+    /**
+     * @return - a mutable copy of this snapshot.
+     */
+    public Graph<K,T> thaw() {
+        Graph<K,T> graph = new Graph<>();
+        for (int id = 0; id < keys.length; id++) {
+            if (keys[id] != null) {
+                graph.addVertex(keys[id], data[id]);
+            }
+        }
+        for (int id = 0; id < keys.length; id++) {
+            if (keys[id] == null) {
+                continue;
+            }
+            for (int i = outOffsets[id]; i < outOffsets[id + 1]; i++) {
+                graph.addEdge(keys[id], keys[outTargets[i]]);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * @return - an edit of the edges of this snapshot, which leaves it untouched.
+     */
+    public Edit edit() {
+        return new Edit();
+    }
+
+    /**
+     * A small set of edge changes to derive a new snapshot from. The snapshot it was made from is never changed, and the
+     * derived one shares the keys and data with it, so deriving only copies the adjacency arrays in bulk.
+     */
+    public class Edit {
+        private final Map<Integer, int[]> outRows = new HashMap<>();
+        private final Map<Integer, int[]> inRows = new HashMap<>();
+
+        private Edit() {
+        }
+
+        private int[] outRow(int id) {
+            return outRows.computeIfAbsent(id, x -> Arrays.copyOfRange(outTargets, outOffsets[x], outOffsets[x + 1]));
+        }
+
+        private int[] inRow(int id) {
+            return inRows.computeIfAbsent(id, x -> Arrays.copyOfRange(inTargets, inOffsets[x], inOffsets[x + 1]));
+        }
+
+        /**
+         * Adds new edge to the snapshot.
+         * @param key1 - the key of the source vertex.
+         * @param key2 - the key of the target vertex.
+         */
+        public Edit addEdge(K key1, K key2) {
+            int id1 = ids.get(key1);
+            int id2 = ids.get(key2);
+            outRows.put(id1, append(outRow(id1), id2));
+            inRows.put(id2, append(inRow(id2), id1));
+            return this;
+        }
+
+        /**
+         * removes edge from the snapshot.
+         * @param key1 - the source of the edge.
+         * @param key2 - the target of the edge.
+         */
+        public Edit removeEdge(K key1, K key2) {
+            int id1 = ids.get(key1);
+            int id2 = ids.get(key2);
+            outRows.put(id1, remove(outRow(id1), id2));
+            inRows.put(id2, remove(inRow(id2), id1));
+            return this;
+        }
+
+        public Edit addEdgesTo(K toKey, Set<K> fromKeys) {
+            fromKeys.forEach(k -> addEdge(k, toKey));
+            return this;
+        }
+
+        public Edit removeIncomingEdgesOf(K key) {
+            int id = ids.get(key);
+            for (int p : inRow(id)) {
+                outRows.put(p, remove(outRow(p), id));
+            }
+            inRows.put(id, new int[0]);
+            return this;
+        }
+
+        /**
+         * @return - a new snapshot with the edits applied.
+         */
+        public FrozenGraph<K,T> apply() {
+            int[] newOutOffsets = new int[outOffsets.length];
+            int[] newOutTargets = splice(outOffsets, outTargets, outRows, newOutOffsets);
+            int[] newInOffsets = new int[inOffsets.length];
+            int[] newInTargets = splice(inOffsets, inTargets, inRows, newInOffsets);
+            return new FrozenGraph<>(FrozenGraph.this, newOutOffsets, newOutTargets, newInOffsets, newInTargets);
+        }
+    }
+
+    private static int[] append(int[] row, int neighbour) {
+        int[] appended = Arrays.copyOf(row, row.length + 1);
+        appended[row.length] = neighbour;
+        return appended;
+    }
+
+    /**
+     * @return - row without the first occurrence of neighbour.
+     */
+    private static int[] remove(int[] row, int neighbour) {
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] == neighbour) {
+                int[] removed = Arrays.copyOf(row, row.length - 1);
+                System.arraycopy(row, i + 1, removed, i, row.length - i - 1);
+                return removed;
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Rebuilds compressed sparse rows with some of the rows replaced, copying every run of unchanged rows at once.
+     * @param newOffsets - filled with the offsets of the new rows.
+     * @return - the targets of the new rows.
+     */
+    private static int[] splice(int[] offsets, int[] targets, Map<Integer, int[]> replaced, int[] newOffsets) {
+        int[] changed = replaced.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int count = offsets.length - 1;
+        int size = targets.length;
+        for (int id : changed) {
+            size += replaced.get(id).length - (offsets[id + 1] - offsets[id]);
+        }
+        int[] newTargets = new int[size];
+        int from = 0, shift = 0;
+        for (int id : changed) {
+            System.arraycopy(targets, offsets[from], newTargets, offsets[from] + shift, offsets[id] - offsets[from]);
+            for (int i = from; i <= id; i++) {
+                newOffsets[i] = offsets[i] + shift;
+            }
+            int[] row = replaced.get(id);
+            System.arraycopy(row, 0, newTargets, newOffsets[id], row.length);
+            shift += row.length - (offsets[id + 1] - offsets[id]);
+            from = id + 1;
+        }
+        System.arraycopy(targets, offsets[from], newTargets, offsets[from] + shift, offsets[count] - offsets[from]);
+        for (int i = from; i <= count; i++) {
+            newOffsets[i] = offsets[i] + shift;
+        }
+        return newTargets;
+    }
+
+    /**
+     * @return - the amount of vertices in the graph.
+     */
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    int idLimit() {
+        return keys.length;
+    }
+
+    @Override
+    Integer idOf(K key) {
+        return ids.get(key);
+    }
+
+    @Override
+    K keyOf(int id) {
+        return keys[id];
+    }
+
+    @Override
+    T dataOf(int id) {
+        return data[id];
+    }
+
+    @Override
+    int[] successorRow(int id) {
+        return outTargets;
+    }
+
+    @Override
+    int successorStart(int id) {
+        return outOffsets[id];
+    }
+
+    @Override
+    int successorEnd(int id) {
+        return outOffsets[id + 1];
+    }
+
+    @Override
+    int[] predecessorRow(int id) {
+        return inTargets;
+    }
+
+    @Override
+    int predecessorStart(int id) {
+        return inOffsets[id];
+    }
+
+    @Override
+    int predecessorEnd(int id) {
+        return inOffsets[id + 1];
+    }
+}
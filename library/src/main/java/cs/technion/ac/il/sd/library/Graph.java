@@ -1,161 +1,125 @@
 package cs.technion.ac.il.sd.library;
 
 import java.util.*;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * Created by michal on 31/05/2016.
  */
 
 
-public class Graph<K,T> {
+public class Graph<K,T> extends AbstractGraph<K,T> {
 
+    private static final int[] NO_NEIGHBOURS = new int[0];
 
-    public void addEdgesTo(K toKey, Set<K> fromKeys) {
-        fromKeys.forEach(k -> addEdge(k,toKey));
-    }
-
-    public void removeIncomingEdgesOf(K key) {
-       Set<K> preds = adjacency.get(key)
-               .getPredecessors()
-               .stream()
-               .collect(Collectors.toSet());
-        preds.forEach(k -> removeEdge(k,key));
-    }
+    /**
+     * Keys are interned to dense int ids when their vertex is added, and all the edges are kept as ids.
+     * A removed vertex leaves a hole: its key is null and its id is never reused.
+     */
+    HashMap<K, Integer> ids;
+    ArrayList<K> keys;
+    ArrayList<T> data;
 
-    public Set<T> getAllReachableFrom(K key) {
+    /**
+     * successors[id] holds dout[id] ids in its prefix, predecessors[id] holds din[id] ids in its prefix.
+     */
+    int[][] successors;
+    int[][] predecessors;
+    int[] dout;
+    int[] din;
 
-        Set<T> reachable = new HashSet<>();
-        Set<K> traversed = new HashSet<>();
-        List<K> queue = new LinkedList<>();
+    /**
+     * null unless {@link #indexReachability(int)} was called.
+     */
+    private ReachabilityIndex index;
 
-        if (adjacency.containsKey(key)) {
-            queue.add(key);
-        }
-        while (!queue.isEmpty()) {
-            K k = queue.remove(0);
-            reachable.add(adjacency.get(k).getData());
-            if (!traversed.contains(k)) {
-                queue.addAll(adjacency.get(k).getSuccessors());
-                traversed.add(k);
-            }
-        }
-        return reachable;
+    public Graph() {
+        ids = new HashMap<>();
+        keys = new ArrayList<>();
+        data = new ArrayList<>();
+        successors = new int[0][];
+        predecessors = new int[0][];
+        dout = new int[0];
+        din = new int[0];
     }
 
-
     /**
-     * A class representing a vertex and his neighbours.
-     * @param <K> - Key
-     * @param <T> - Data
+     *  Copy constructor.
+     * @param graph - the graph to be copied.
      */
-    private class Vertex<K,T> implements Cloneable{
-        LinkedList<K> successors;
-        LinkedList<K> predecessors;
-        T data;
-
-        Vertex(T data) {
-            this.data = data;
-            successors = new LinkedList<>();
-            predecessors = new LinkedList<>();
-        }
-
-        /**
-         * adds an edge from this vertex to key
-         * @param key - key of vertex
-         */
-        void addSuccessor(K key) {
-            successors.add(key);
-            //v.predecessors.add(this); //TODO
-        }
-
-        /**
-         * adds an edge from vertex represented by key to this vertex.
-         * @param key - key of vertex
-         */
-        void addPredecessor(K key) {
-            predecessors.add(key);
-        }
-
-        T getData() {
-            return data;
-        }
-
-        /**
-         * @return - the out degree of the vertex.
-         */
-        public int dout() {
-            return successors.size();
-        }
-
-        /**
-         * @return - the in degree of the vertex.
-         */
-        public int din() {
-            return predecessors.size();
-        }
+    public Graph(Graph<K,T> graph){
+        ids = new HashMap<>(graph.ids);
+        keys = new ArrayList<>(graph.keys);
+        data = new ArrayList<>(graph.data);
+        successors = copyRows(graph.successors, graph.dout, graph.keys.size());
+        predecessors = copyRows(graph.predecessors, graph.din, graph.keys.size());
+        dout = Arrays.copyOf(graph.dout, graph.keys.size());
+        din = Arrays.copyOf(graph.din, graph.keys.size());
+    }
 
-        /**
-         * removes the edge from this vertex to key.
-         * @param key - key of vertex.
-         */
-        public void removeSuccessor(K key) {
-            successors.remove(key);
+    /**
+     * Builds a graph in bulk from int adjacency, without looking up any key per edge.
+     * @param keys - the keys of the vertices, distinct. The id of each vertex is its index in keys.
+     * @param data - the data of the vertices, by id.
+     * @param offsets - the successors of id are successors[offsets[id]..offsets[id + 1]).
+     * @param successors - the ids of the successors of all the vertices, row after row.
+     */
+    public static <K,T> Graph<K,T> fromAdjacency(List<K> keys, List<T> data, int[] offsets, int[] successors) {
+        int count = keys.size();
+        Graph<K,T> graph = new Graph<>();
+        graph.keys = new ArrayList<>(keys);
+        graph.data = new ArrayList<>(data);
+        graph.ids = new HashMap<>(count * 4 / 3 + 1);
+        for (int id = 0; id < count; id++) {
+            if (graph.ids.put(keys.get(id), id) != null) {
+                throw new IllegalArgumentException("duplicate key " + keys.get(id));
+            }
         }
-
-        /**
-         * removes the edge from key to this vertex.
-         * @param key = key of vertex.
-         */
-        public void removePredecessor(K key){
-            predecessors.remove(key);
+        graph.successors = new int[count][];
+        graph.predecessors = new int[count][];
+        graph.dout = new int[count];
+        graph.din = new int[count];
+        for (int id = 0; id < count; id++) {
+            graph.dout[id] = offsets[id + 1] - offsets[id];
+            graph.successors[id] = graph.dout[id] == 0 ? NO_NEIGHBOURS
+                    : Arrays.copyOfRange(successors, offsets[id], offsets[id + 1]);
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                graph.din[successors[i]]++;
+            }
         }
-
-        /**
-         * @param key - key of vertex.
-         * @return - true iff there is an edge from this vertex to key.
-         */
-        public boolean connectedTo(K key){
-            return successors.contains(key);
+        for (int id = 0; id < count; id++) {
+            graph.predecessors[id] = graph.din[id] == 0 ? NO_NEIGHBOURS : new int[graph.din[id]];
         }
-
-        /**
-         * @return - list of all the successors of this vertex in the graph.
-         */
-        public LinkedList<K> getSuccessors(){
-            return successors;
+        int[] filled = new int[count];
+        for (int id = 0; id < count; id++) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                graph.predecessors[successors[i]][filled[successors[i]]++] = id;
+            }
         }
+        return graph;
+    }
 
-        /**
-         * @return - list of all the predecessors of this vertex in the graph.
-         */
-        public LinkedList<K> getPredecessors(){
-            return predecessors;
+    private static int[][] copyRows(int[][] rows, int[] lengths, int count) {
+        int[][] copy = new int[count][];
+        for (int i = 0; i < count; i++) {
+            copy[i] = lengths[i] == 0 ? NO_NEIGHBOURS : Arrays.copyOf(rows[i], lengths[i]);
         }
+        return copy;
     }
 
-    HashMap<K, Vertex<K,T>> adjacency;
-
-    public Graph() {
-        adjacency = new HashMap<K, Vertex<K,T>>();
+    public void addEdgesTo(K toKey, Set<K> fromKeys) {
+        fromKeys.forEach(k -> addEdge(k,toKey));
     }
 
-    /**
-     *  Copy constructor.
-     * @param graph - the graph to be copied.
-     */
-    public Graph(Graph<K,T> graph){
-        adjacency = new HashMap<K, Vertex<K,T>>();
-        for (Map.Entry<K, Vertex<K,T>> v : graph.adjacency.entrySet()){
-            addVertex(v.getKey(), v.getValue().getData());
-        }
-        for (Map.Entry<K, Vertex<K,T>> v : graph.adjacency.entrySet()){
-            for(K u : v.getValue().getSuccessors()){
-                addEdge(v.getKey(),u);
+    public void removeIncomingEdgesOf(K key) {
+        int id = ids.get(key);
+        for (int i = 0; i < din[id]; i++) {
+            remove(successors, dout, predecessors[id][i], id);
+            if (index != null) {
+                index.edgeRemoved(predecessors[id][i]);
             }
         }
-
+        removals++;
+        din[id] = 0;
     }
 
     /**
@@ -164,187 +128,203 @@ public class Graph<K,T> {
      * @param data - the data of the new vertex.
      */
     public void addVertex(K key, T data) {
-        Vertex v = new Vertex(data);
-        if (adjacency.containsKey(key)) {
+        if (ids.containsKey(key)) {
             return;
         }
-        adjacency.put(key, v);
+        int id = keys.size();
+        if (id == dout.length) {
+            int capacity = Math.max(16, id * 2);
+            successors = Arrays.copyOf(successors, capacity);
+            predecessors = Arrays.copyOf(predecessors, capacity);
+            dout = Arrays.copyOf(dout, capacity);
+            din = Arrays.copyOf(din, capacity);
+        }
+        successors[id] = NO_NEIGHBOURS;
+        predecessors[id] = NO_NEIGHBOURS;
+        ids.put(key, id);
+        keys.add(key);
+        this.data.add(data);
     }
 
-
-
-
     /**
      * Adds new edge to the graph.
      * @param key1 - the key of the source vertex.
      * @param key2 - the key of the target vertex.
      */
     public void addEdge(K key1, K key2) {
-        Vertex<K,T> v1 = adjacency.get(key1);
-        Vertex<K,T> v2 = adjacency.get(key2);
-        v1.addSuccessor(key2);
-        v2.addPredecessor(key1);
-    }
-
-    /**
-     * removes a vertex from the graph.
-     * @param key - the key of the vertex to be removed.
-     */
-    public void removeVertex(K key) {
-        Vertex<K,T> v = adjacency.get(key);
-        for(K k : v.getSuccessors()){
-            adjacency.get(k).removePredecessor(key);
+        int id1 = ids.get(key1);
+        int id2 = ids.get(key2);
+        append(successors, dout, id1, id2);
+        append(predecessors, din, id2, id1);
+        additions++;
+        if (index != null) {
+            index.edgeAdded(id1, id2);
         }
-        for(K k : v.getPredecessors()){
-            adjacency.get(k).removeSuccessor(key);
-        }
-        adjacency.remove(key);
     }
 
     /**
-     * @return - all the data of vertices in the graph that have in degree of 0.
+     * adds neighbour to the end of the row of id, growing it if it's full.
      */
-    public LinkedList<T> getSources() {
-        LinkedList<T> sources = new LinkedList<>();
-        for (K key : getSourcesKeys()){
-            sources.add(adjacency.get(key).getData());
+    private static void append(int[][] rows, int[] lengths, int id, int neighbour) {
+        if (lengths[id] == rows[id].length) {
+            rows[id] = Arrays.copyOf(rows[id], Math.max(4, lengths[id] * 2));
         }
-        return sources;
+        rows[id][lengths[id]++] = neighbour;
     }
 
     /**
-     * @return - all the keys of vertices in the graph that have in degree of 0.
+     * removes the first occurrence of neighbour from the row of id, keeping the order of the rest.
      */
-    private LinkedList<K> getSourcesKeys(){
-        LinkedList<K> sources = new LinkedList<>();
-        for (Map.Entry<K, Vertex<K,T>> v : adjacency.entrySet()) {
-            if(v.getValue().din() <= 0){
-                sources.add(v.getKey());
+    private static void remove(int[][] rows, int[] lengths, int id, int neighbour) {
+        int[] row = rows[id];
+        for (int i = 0; i < lengths[id]; i++) {
+            if (row[i] == neighbour) {
+                System.arraycopy(row, i + 1, row, i, lengths[id] - i - 1);
+                lengths[id]--;
+                return;
             }
         }
-        return sources;
     }
 
     /**
-     * @return - all the data of vertices in the graph that have out degree of 0.
+     * removes a vertex from the graph.
+     * @param key - the key of the vertex to be removed.
      */
-    public LinkedList<T> getTargets() {
-        LinkedList<T> targets = new LinkedList<>();
-        for (K key : getTargetsKeys()){
-            targets.add(adjacency.get(key).getData());
+    public void removeVertex(K key) {
+        int id = ids.remove(key);
+        removals++;
+        if (index != null) {
+            index.vertexRemoved(id);
         }
-        return targets;
-    }
-
-    /**
-     * @return - all the keys of vertices in the graph that have out degree of 0.
-     */
-    private LinkedList<K> getTargetsKeys(){
-        LinkedList<K> targets = new LinkedList<>();
-        for (Map.Entry<K, Vertex<K,T>> v : adjacency.entrySet()) {
-            if(v.getValue().dout() <= 0){
-                targets.add(v.getKey());
-            }
+        for (int i = 0; i < dout[id]; i++) {
+            remove(predecessors, din, successors[id][i], id);
         }
-        return targets;
+        for (int i = 0; i < din[id]; i++) {
+            remove(successors, dout, predecessors[id][i], id);
+        }
+        successors[id] = NO_NEIGHBOURS;
+        predecessors[id] = NO_NEIGHBOURS;
+        dout[id] = 0;
+        din[id] = 0;
+        keys.set(id, null);
+        data.set(id, null);
     }
 
-
     /**
      * removes edge from the graph.
      * @param key1 - the source of the edge.
      * @param key2 - the target of the edge.
      */
     public void removeEdge(K key1, K key2) {
-        Vertex v1 = adjacency.get(key1);
-        Vertex v2 = adjacency.get(key2);
-        v1.removeSuccessor(key2);
-        v2.removePredecessor(key1);
-    }
-
-    /**
-     * @return - topological sort apon the graph.
-     */
-    public LinkedList<T> toposort(){
-        Graph temp = new Graph(this);
-        LinkedList<T> sort = new LinkedList<>();
-        LinkedList<K> sources;
-        do{
-            sources = temp.getSourcesKeys();
-            for(K source : sources){
-                sort.addLast(adjacency.get(source).getData());
-                temp.removeVertex(source);
-            }
-        }while (!sources.isEmpty());
-        if(sources.isEmpty() && temp.size() > 0){
-            return new LinkedList<T>();
+        int id1 = ids.get(key1);
+        int id2 = ids.get(key2);
+        remove(successors, dout, id1, id2);
+        remove(predecessors, din, id2, id1);
+        removals++;
+        if (index != null) {
+            index.edgeRemoved(id1);
         }
-        return sort;
-    }
-
-    public LinkedList<T> toposort(Consumer<T> visitor){
-        Graph temp = new Graph(this);
-        LinkedList<T> sort = new LinkedList<>();
-        LinkedList<K> sources;
-        do{
-            sources = temp.getSourcesKeys();
-            for(K source : sources){
-                sort.addLast(adjacency.get(source).getData());
-                temp.removeVertex(source);
-            }
-        }while (!sources.isEmpty());
-        List<T> unsorted = temp.getVertices();
-        sort.forEach(visitor);
-        unsorted.forEach(visitor);
-        return sort;
     }
 
     /**
      * @return - the amount of vertices in the graph.
      */
+    @Override
     public int size(){
-        return adjacency.size();
+        return ids.size();
     }
 
     /**
-     * @param key1 - key of source vertex.
-     * @param key2 - key of target vertex.
-     * @return - true iff there is an edge from key1 to key2.
+     * Memoizes the reachable sets of the most recently queried vertices for getAllReachableFrom and isReachable.
+     * The memoized sets are updated as edges and vertices change, instead of being thrown away.
+     * @param capacity - the maximal amount of vertices whose reachable set is memoized.
+     * @return - this graph.
      */
-    public boolean doesEdgeExists(K key1, K key2){
-        Vertex<K,T> v = adjacency.get(key1);
-        if (v == null){
-            return false;
-        }
-        return v.connectedTo(key2);
+    public Graph<K,T> indexReachability(int capacity){
+        index = new ReachabilityIndex(this, capacity);
+        return this;
     }
 
-    /**
-     * @param key1 - key of source vertex.
-     * @param key2 - key of target vertex.
-     * @return - true iff there is a path from key1 to key2.
-     */
-    public boolean isReachableAux(K key1, K key2, LinkedList<K> visited){
-        if(key1.equals(key2)){
-            return true;
+    @Override
+    public Set<T> getAllReachableFrom(K key) {
+        Integer id = ids.get(key);
+        if (index == null || id == null) {
+            return super.getAllReachableFrom(key);
         }
-        visited.add(key1);
-        for(K key : adjacency.get(key1).getSuccessors()){
-            if(!visited.contains(key) && isReachable(key, key2)){
-                return true;
+        Set<T> reachable = new HashSet<>();
+        long[] closure = index.reachableFrom(id);
+        for (int word = 0; word < closure.length; word++) {
+            for (long bits = closure[word]; bits != 0; bits &= bits - 1) {
+                reachable.add(data.get(word << 6 | Long.numberOfTrailingZeros(bits)));
             }
         }
-        return false;
-    }
-    public boolean isReachable(K key1, K key2){
-        return isReachableAux(key1, key2, new LinkedList<>());
+        return reachable;
     }
 
-    public LinkedList<T> getVertices(){
-        LinkedList<T> vertices = new LinkedList<>();
-        for(Map.Entry<K, Vertex<K,T>> entry : adjacency.entrySet()){
-            vertices.add(entry.getValue().getData());
+    @Override
+    public boolean isReachable(K key1, K key2) {
+        Integer id1 = ids.get(key1);
+        Integer id2 = ids.get(key2);
+        if (index == null || id1 == null || id2 == null) {
+            return super.isReachable(key1, key2);
         }
-        return vertices;
+        return index.isReachable(id1, id2);
+    }
+
+    /**
+     * @return - an immutable snapshot of the graph, with its adjacency in compressed sparse rows.
+     */
+    public FrozenGraph<K,T> freeze(){
+        return new FrozenGraph<>(this);
+    }
+
+    @Override
+    int idLimit() {
+        return keys.size();
+    }
+
+    @Override
+    Integer idOf(K key) {
+        return ids.get(key);
+    }
+
+    @Override
+    K keyOf(int id) {
+        return keys.get(id);
+    }
+
+    @Override
+    T dataOf(int id) {
+        return data.get(id);
+    }
+
+    @Override
+    int[] successorRow(int id) {
+        return successors[id];
+    }
+
+    @Override
+    int successorStart(int id) {
+        return 0;
+    }
+
+    @Override
+    int successorEnd(int id) {
+        return dout[id];
+    }
+
+    @Override
+    int[] predecessorRow(int id) {
+        return predecessors[id];
+    }
+
+    @Override
+    int predecessorStart(int id) {
+        return 0;
+    }
+
+    @Override
+    int predecessorEnd(int id) {
+        return din[id];
     }
 }
@@ -0,0 +1,92 @@
+package cs.technion.ac.il.sd.library;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Memoizes the set of ids reachable from recently queried vertices of a graph, as bitsets.
+ * The graph reports every change of its edges, and only the memoized sets that the change can affect are touched:
+ * a new edge u->v is merged into every set that contains u, while a removed edge u->v or a removed vertex u drops
+ * every set that contains u, to be traversed again on its next query.
+ */
+final class ReachabilityIndex {
+
+    private final AbstractGraph<?, ?> graph;
+    private final LinkedHashMap<Integer, long[]> closures;
+
+    /**
+     * @param graph - the graph to index.
+     * @param capacity - the maximal amount of vertices whose reachable set is memoized; least recently queried go first.
+     */
+    ReachabilityIndex(AbstractGraph<?, ?> graph, int capacity) {
+        this.graph = graph;
+        this.closures = new LinkedHashMap<Integer, long[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, long[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return - a bitset of the ids reachable from id, including id itself. Must not be modified.
+     */
+    long[] reachableFrom(int id) {
+        long[] closure = closures.get(id);
+        if (closure == null) {
+            closure = graph.traverse(id, Integer.MAX_VALUE, t -> true);
+            closures.put(id, closure);
+        }
+        return closure;
+    }
+
+    boolean isReachable(int from, int to) {
+        return contains(reachableFrom(from), to);
+    }
+
+    void edgeAdded(int from, int to) {
+        if (closures.values().stream().noneMatch(c -> contains(c, from))) {
+            return;
+        }
+        long[] added = reachableFrom(to);
+        for (Map.Entry<Integer, long[]> e : closures.entrySet()) {
+            long[] closure = e.getValue();
+            if (closure != added && contains(closure, from)) {
+                if (closure.length < added.length) {
+                    closure = Arrays.copyOf(closure, added.length);
+                    e.setValue(closure);
+                }
+                for (int i = 0; i < added.length; i++) {
+                    closure[i] |= added[i];
+                }
+            }
+        }
+    }
+
+    void edgeRemoved(int from) {
+        invalidate(from);
+    }
+
+    void vertexRemoved(int id) {
+        invalidate(id);
+    }
+
+    /**
+     * drops every memoized set that contains id.
+     */
+    private void invalidate(int id) {
+        for (Iterator<long[]> it = closures.values().iterator(); it.hasNext(); ) {
+            if (contains(it.next(), id)) {
+                it.remove();
+            }
+        }
+    }
+
+    static boolean contains(long[] bitset, int id) {
+        return (id >>> 6) < bitset.length && (bitset[id >>> 6] & 1L << id) != 0;
+    }
+}
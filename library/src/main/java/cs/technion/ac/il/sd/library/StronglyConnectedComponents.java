@@ -0,0 +1,218 @@
+package cs.technion.ac.il.sd.library;
+
+import java.util.Arrays;
+
+/**
+ * Tarjan's algorithm over vertices identified by int ids, with an explicit stack instead of recursion, so that long
+ * paths can't overflow the stack. Components are numbered in topological order of the condensation: there is no edge
+ * from a component to an earlier one.
+ * It can run over every id below a limit, or over a few of the vertices of a large graph, such as the part of it a
+ * change can affect, with state sized by those vertices only. Its buffers are kept and only grown from run to run, so
+ * running it again allocates nothing once they are large enough.
+ */
+public final class StronglyConnectedComponents {
+
+    /**
+     * The edges to follow: the successors of id are row(id)[start(id)..end(id)), and only those that are followed are
+     * visited.
+     */
+    public interface Edges {
+        int[] row(int id);
+        int start(int id);
+        int end(int id);
+        boolean follows(int id);
+    }
+
+    private Edges edges;
+    /** the vertices of the last run, or null if it ran over every id below size */
+    private int[] vertices;
+    private int size;
+    /** open addressing from id + 1 to position among vertices, with 0 for an empty slot */
+    private int[] slots = new int[0];
+    private int[] positions = new int[0];
+    private int mask;
+    private int shift;
+
+    /** by position: the index, low link and next successor of every vertex, and its component once it has one */
+    private int[] index = new int[16];
+    private int[] low = new int[16];
+    private int[] cursor = new int[16];
+    private int[] component = new int[16];
+    private int[] stack = new int[16];
+    private int[] calls = new int[16];
+    /** the ids of the members of every component, component after component, in the order they were found */
+    private int[] members = new int[16];
+    private int[] ends = new int[16];
+    private int count;
+
+    /**
+     * Finds the components of the vertices whose ids are below limit and are followed.
+     * @return - the amount of components.
+     */
+    public int run(int limit, Edges edges){
+        this.vertices = null;
+        return run(edges, limit);
+    }
+
+    /**
+     * Finds the components of vertices[0..size), following only edges between them.
+     * @return - the amount of components.
+     */
+    public int run(int[] vertices, int size, Edges edges){
+        this.vertices = vertices;
+        int capacity = Integer.highestOneBit(Math.max(2, size) * 2 - 1) * 2;
+        if (slots.length < capacity){
+            slots = new int[capacity];
+            positions = new int[capacity];
+        } else {
+            Arrays.fill(slots, 0, capacity, 0);
+        }
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        for (int v = 0; v < size; v++){
+            int slot = hash(vertices[v]);
+            while (slots[slot] != 0){
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = vertices[v] + 1;
+            positions[slot] = v;
+        }
+        return run(edges, size);
+    }
+
+    private int hash(int id){
+        return id * 0x9E3779B9 >>> shift;
+    }
+
+    /**
+     * @return - the position of id among the vertices of the last run, or -1 if it is not one of them.
+     */
+    private int position(int id){
+        if (vertices == null){
+            return id >= 0 && id < size && edges.follows(id) ? id : -1;
+        }
+        for (int slot = hash(id); slots[slot] != 0; slot = (slot + 1) & mask){
+            if (slots[slot] == id + 1){
+                return positions[slot];
+            }
+        }
+        return -1;
+    }
+
+    private int id(int position){
+        return vertices == null ? position : vertices[position];
+    }
+
+    private int run(Edges edges, int size){
+        this.edges = edges;
+        this.size = size;
+        index = ensureCapacity(index, size);
+        low = ensureCapacity(low, size);
+        cursor = ensureCapacity(cursor, size);
+        component = ensureCapacity(component, size);
+        stack = ensureCapacity(stack, size);
+        calls = ensureCapacity(calls, size);
+        members = ensureCapacity(members, size);
+        ends = ensureCapacity(ends, size);
+        Arrays.fill(index, 0, size, 0);
+        Arrays.fill(component, 0, size, -1);
+        int next = 1, top = 0, found = 0;
+        count = 0;
+        for (int root = 0; root < size; root++){
+            if (index[root] != 0 || vertices == null && !edges.follows(root)){
+                continue;
+            }
+            int depth = 0;
+            index[root] = low[root] = next++;
+            cursor[root] = edges.start(id(root));
+            stack[top++] = root;
+            calls[depth++] = root;
+            while (depth > 0){
+                int v = calls[depth - 1];
+                int id = id(v);
+                if (cursor[v] < edges.end(id)){
+                    int successor = edges.row(id)[cursor[v]++];
+                    int w = edges.follows(successor) ? position(successor) : -1;
+                    if (w == -1){
+                        continue;
+                    }
+                    if (index[w] == 0){
+                        index[w] = low[w] = next++;
+                        cursor[w] = edges.start(successor);
+                        stack[top++] = w;
+                        calls[depth++] = w;
+                    } else if (component[w] == -1){
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (depth > 0){
+                    low[calls[depth - 1]] = Math.min(low[calls[depth - 1]], low[v]);
+                }
+                if (low[v] == index[v]){
+                    int w;
+                    do {
+                        w = stack[--top];
+                        component[w] = count;
+                        members[found++] = id(w);
+                    } while (w != v);
+                    ends[count++] = found;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity){
+        return capacity <= array.length ? array : new int[Math.max(capacity, array.length * 2)];
+    }
+
+    /**
+     * @return - the amount of components of the last run.
+     */
+    public int count(){
+        return count;
+    }
+
+    /**
+     * @return - the component of id in the last run, or -1 if it was not run over.
+     */
+    public int componentOf(int id){
+        int position = position(id);
+        return position == -1 || component[position] == -1 ? -1 : count - 1 - component[position];
+    }
+
+    /**
+     * The ids of the members of component c are member(start(c))..member(end(c) - 1).
+     */
+    public int start(int c){
+        int found = count - 1 - c;
+        return found == 0 ? 0 : ends[found - 1];
+    }
+
+    public int end(int c){
+        return ends[count - 1 - c];
+    }
+
+    public int member(int i){
+        return members[i];
+    }
+
+    /**
+     * @return - whether component c has a cycle: more than one member, or an edge from its member to itself.
+     */
+    public boolean isCyclic(int c){
+        if (end(c) - start(c) > 1){
+            return true;
+        }
+        int id = member(start(c));
+        int[] row = edges.row(id);
+        for (int i = edges.start(id), end = edges.end(id); i < end; i++){
+            if (row[i] == id && edges.follows(id)){
+                return true;
+            }
+        }
+        return false;
+    }
+}
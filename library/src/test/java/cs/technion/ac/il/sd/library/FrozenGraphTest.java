@@ -0,0 +1,135 @@
+package cs.technion.ac.il.sd.library;
+
+import com.google.common.collect.Sets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FrozenGraph}
+ */
+public class FrozenGraphTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    private Graph<Integer, Integer> createComplex() {
+        Graph<Integer,Integer> g = new Graph<>();
+        for (int key : new int[]{5, 7, 3, 11, 8, 2, 9, 10}) {
+            g.addVertex(key, key);
+        }
+        g.addEdge(5, 11);
+        g.addEdge(11, 2);
+        g.addEdge(11, 9);
+        g.addEdge(11, 10);
+        g.addEdge(7, 11);
+        g.addEdge(7, 8);
+        g.addEdge(8, 9);
+        g.addEdge(3, 8);
+        g.addEdge(3, 10);
+        return g;
+    }
+
+    @Test
+    public void answersLikeTheGraph() {
+        Graph<Integer, Integer> graph = createComplex();
+        FrozenGraph<Integer, Integer> $ = graph.freeze();
+        assertEquals(graph.size(), $.size());
+        assertEquals(graph.getVertices(), $.getVertices());
+        assertEquals(graph.getSources(), $.getSources());
+        assertEquals(graph.getTargets(), $.getTargets());
+        assertEquals(graph.toposort(), $.toposort());
+        for (int key : new int[]{5, 7, 3, 11, 8, 2, 9, 10}) {
+            assertEquals(graph.getAllReachableFrom(key), $.getAllReachableFrom(key));
+            assertEquals(graph.getSuccessors(key), $.getSuccessors(key));
+            assertEquals(graph.getPredecessors(key), $.getPredecessors(key));
+        }
+        assertTrue($.doesEdgeExists(7, 8));
+        assertFalse($.doesEdgeExists(8, 7));
+        assertTrue($.isReachable(7, 9));
+        assertFalse($.isReachable(9, 7));
+    }
+
+    @Test
+    public void notAffectedByTheGraph() {
+        Graph<Integer, Integer> graph = createComplex();
+        FrozenGraph<Integer, Integer> $ = graph.freeze();
+        graph.removeIncomingEdgesOf(11);
+        graph.removeVertex(8);
+        assertTrue($.doesEdgeExists(5, 11));
+        assertTrue($.doesEdgeExists(7, 8));
+        assertEquals(Sets.newHashSet(7, 8, 11, 2, 9, 10), $.getAllReachableFrom(7));
+    }
+
+    @Test
+    public void editDerivesNewSnapshot() {
+        FrozenGraph<Integer, Integer> $ = createComplex().freeze();
+        FrozenGraph<Integer, Integer> edited = $.edit()
+                .removeIncomingEdgesOf(11)
+                .addEdgesTo(2, Sets.newHashSet(3, 8))
+                .apply();
+        assertFalse(edited.doesEdgeExists(5, 11));
+        assertFalse(edited.doesEdgeExists(7, 11));
+        assertTrue(edited.doesEdgeExists(3, 2));
+        assertTrue(edited.doesEdgeExists(8, 2));
+        assertEquals(Sets.newHashSet(5), edited.getAllReachableFrom(5));
+        assertEquals(Sets.newHashSet(8, 9, 2), edited.getAllReachableFrom(8));
+
+        assertTrue($.doesEdgeExists(5, 11));
+        assertFalse($.doesEdgeExists(3, 2));
+        assertEquals(Sets.newHashSet(8, 9), $.getAllReachableFrom(8));
+    }
+
+    @Test
+    public void editsMatchGraphEdits() {
+        Random random = new Random(7);
+        int n = 200;
+        Graph<Integer, Integer> graph = new Graph<>();
+        for (int i = 0; i < n; i++) {
+            graph.addVertex(i, i);
+        }
+        for (int i = 0; i < 3 * n; i++) {
+            graph.addEdge(random.nextInt(n), random.nextInt(n));
+        }
+        FrozenGraph<Integer, Integer> $ = graph.freeze();
+        for (int round = 0; round < 50; round++) {
+            FrozenGraph<Integer, Integer>.Edit edit = $.edit();
+            for (int change = 0; change < 3; change++) {
+                int key = random.nextInt(n);
+                if (random.nextBoolean()) {
+                    graph.removeIncomingEdgesOf(key);
+                    edit.removeIncomingEdgesOf(key);
+                } else {
+                    HashSet<Integer> from = Sets.newHashSet(random.nextInt(n), random.nextInt(n));
+                    graph.addEdgesTo(key, from);
+                    edit.addEdgesTo(key, from);
+                }
+            }
+            $ = edit.apply();
+            for (int key = 0; key < n; key++) {
+                assertEquals(graph.getSuccessors(key), $.getSuccessors(key));
+                assertEquals(graph.getPredecessors(key), $.getPredecessors(key));
+            }
+        }
+        assertEquals(graph.toposort(), $.toposort());
+    }
+
+    @Test
+    public void thawRoundTrip() {
+        Graph<Integer, Integer> graph = createComplex();
+        graph.removeVertex(8);
+        Graph<Integer, Integer> $ = graph.freeze().thaw();
+        assertEquals(graph.size(), $.size());
+        assertEquals(graph.getVertices(), $.getVertices());
+        for (int key : new int[]{5, 7, 3, 11, 2, 9, 10}) {
+            assertEquals(graph.getSuccessors(key), $.getSuccessors(key));
+        }
+        $.addEdge(2, 9);
+        assertFalse(graph.doesEdgeExists(2, 9));
+    }
+}
@@ -6,7 +6,13 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -170,6 +176,52 @@ public class GraphTest {
         assertEquals("three", topo.get(3));
     }
 
+    /**
+     * 1 -> 2 -> 3 -> 4
+     *      ^         |
+     *      \---------/
+     */
+    @Test
+    public void toposortCyclic() throws Exception {
+        graph.addVertex(1, "one");
+        graph.addVertex(2, "two");
+        graph.addVertex(3, "three");
+        graph.addVertex(4, "four");
+
+        graph.addEdge(1,2);
+        graph.addEdge(2,3);
+        graph.addEdge(3,4);
+        graph.addEdge(4,2);
+
+        assertTrue(graph.toposort().isEmpty());
+
+        LinkedList<String> visited = new LinkedList<>();
+        LinkedList<String> topo = graph.toposort(visited::add);
+        assertEquals(1, topo.size());
+        assertEquals("one", topo.get(0));
+        assertEquals(4, visited.size());
+        assertEquals("one", visited.get(0));
+        assertTrue(visited.containsAll(Sets.newHashSet("two", "three", "four")));
+
+        assertTrue(graph.doesEdgeExists(4,2));
+        assertEquals(4, graph.size());
+    }
+
+    @Test
+    public void toposortLongChain() throws Exception {
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            graph.addVertex(i, Integer.toString(i));
+        }
+        for (int i = n - 1; i > 0; i--) {
+            graph.addEdge(i - 1, i);
+        }
+        LinkedList<String> topo = graph.toposort();
+        assertEquals(n, topo.size());
+        assertEquals("0", topo.getFirst());
+        assertEquals(Integer.toString(n - 1), topo.getLast());
+    }
+
     /**
      *      1
      *     / \
@@ -195,6 +247,62 @@ public class GraphTest {
 
     }
 
+    @Test
+    public void isReachableLongChain() throws Exception {
+        Graph<Integer, Integer> $ = new Graph<>();
+        int n = 1000000;
+        for (int i = 0; i < n; i++) {
+            $.addVertex(i, i);
+        }
+        for (int i = 1; i < n; i++) {
+            $.addEdge(i - 1, i);
+        }
+        assertTrue($.isReachable(0, n - 1));
+        assertFalse($.isReachable(n - 1, 0));
+    }
+
+    /**
+     * 0 -> 1 -> 3 -> 4 -> 6 ... 3k, a ladder of 40 diamonds: 3k -> 3k+1 -> 3k+3 and 3k -> 3k+2 -> 3k+3
+     */
+    @Test
+    public void isReachableDiamonds() throws Exception {
+        Graph<Integer, Integer> $ = new Graph<>();
+        int diamonds = 40;
+        for (int i = 0; i <= 3 * diamonds; i++) {
+            $.addVertex(i, i);
+        }
+        for (int k = 0; k < diamonds; k++) {
+            $.addEdge(3 * k, 3 * k + 1);
+            $.addEdge(3 * k, 3 * k + 2);
+            $.addEdge(3 * k + 1, 3 * k + 3);
+            $.addEdge(3 * k + 2, 3 * k + 3);
+        }
+        $.addVertex(-1, -1);
+        assertTrue($.isReachable(0, 3 * diamonds));
+        assertFalse($.isReachable(0, -1));
+        assertFalse($.isReachable(3 * diamonds, 0));
+    }
+
+    @Test
+    public void isReachableCached() throws Exception {
+        Graph<Integer, Integer> $ = createComplex();
+        $.setReachabilityCacheSize(4);
+        assertTrue($.isReachable(7, 9));
+        assertFalse($.isReachable(3, 2));
+        $.addEdge(8, 2);
+        assertTrue($.isReachable(3, 2));
+        assertTrue($.isReachable(7, 9));
+        $.removeEdge(8, 9);
+        $.removeEdge(11, 9);
+        assertFalse($.isReachable(7, 9));
+        assertTrue($.isReachable(3, 2));
+        $.removeIncomingEdgesOf(2);
+        assertFalse($.isReachable(3, 2));
+        for (int i = 0; i < 10; i++) {
+            assertTrue($.isReachable(5, 10));
+        }
+    }
+
     @Test
     public void getVertices() throws Exception{
         graph.addVertex(1, "one");
@@ -234,6 +342,93 @@ public class GraphTest {
         assertEquals($.getAllReachableFrom(9), Sets.newHashSet(9));
     }
 
+    @Test
+    public void reachableWithinDepth() {
+        Graph<Integer, Integer> $ = createComplex();
+        assertEquals(Sets.newHashSet(7), $.getAllReachableFrom(7, 0));
+        assertEquals(Sets.newHashSet(7, 8, 11), $.getAllReachableFrom(7, 1));
+        assertEquals(Sets.newHashSet(7, 8, 11, 2, 9, 10), $.getAllReachableFrom(7, 2));
+        assertEquals(Sets.newHashSet(), $.getAllReachableFrom(42, 2));
+    }
+
+    @Test
+    public void findReachable() {
+        Graph<Integer, Integer> $ = createComplex();
+        assertEquals(Optional.of(10), $.findReachableFrom(3, x -> x > 8));
+        assertEquals(Optional.of(9), $.findReachableFrom(3, x -> x == 9));
+        assertEquals(Optional.of(11), $.findReachableFrom(7, x -> x > 8));
+        assertEquals(Optional.empty(), $.findReachableFrom(8, x -> x > 9));
+
+        List<Integer> visited = new LinkedList<>();
+        $.traverseFrom(5, Integer.MAX_VALUE, x -> visited.add(x) && x != 11);
+        assertEquals(Arrays.asList(5, 11), visited);
+    }
+
+    /**
+     * 0 -> 1..1000 -> 1001..2000, every vertex of the middle layer connected to every vertex of the last.
+     */
+    @Test
+    public void reachableFromWideFanOut() {
+        Graph<Integer, Integer> $ = new Graph<>();
+        int width = 1000;
+        for (int i = 0; i <= 2 * width; i++) {
+            $.addVertex(i, i);
+        }
+        for (int i = 1; i <= width; i++) {
+            $.addEdge(0, i);
+            for (int j = width + 1; j <= 2 * width; j++) {
+                $.addEdge(i, j);
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(2 * width + 1, $.getAllReachableFrom(0).size());
+        }
+        assertEquals(width + 1, $.getAllReachableFrom(0, 1).size());
+    }
+
+    @Test
+    public void indexedReachability() {
+        Random random = new Random(3);
+        int n = 60;
+        Graph<Integer, Integer> plain = new Graph<>();
+        Graph<Integer, Integer> $ = new Graph<Integer, Integer>().indexReachability(16);
+        for (int i = 0; i < n; i++) {
+            plain.addVertex(i, i);
+            $.addVertex(i, i);
+        }
+        Set<Integer> removed = new HashSet<>();
+        for (int step = 0; step < 2000; step++) {
+            int a = random.nextInt(n), b = random.nextInt(n);
+            if (removed.contains(a) || removed.contains(b)) {
+                continue;
+            }
+            switch (random.nextInt(10)) {
+                case 0: case 1: case 2:
+                    plain.addEdge(a, b);
+                    $.addEdge(a, b);
+                    break;
+                case 3:
+                    plain.removeEdge(a, b);
+                    $.removeEdge(a, b);
+                    break;
+                case 4:
+                    plain.removeIncomingEdgesOf(a);
+                    $.removeIncomingEdgesOf(a);
+                    break;
+                case 5:
+                    if (step % 50 == 0) {
+                        plain.removeVertex(a);
+                        $.removeVertex(a);
+                        removed.add(a);
+                    }
+                    break;
+                default:
+                    assertEquals(plain.getAllReachableFrom(a), $.getAllReachableFrom(a));
+                    assertEquals(plain.getAllReachableFrom(a).contains(b), $.isReachable(a, b));
+            }
+        }
+    }
+
     @Test
     public void removeIncomingEdges() {
         Graph<Integer, Integer> $ = createComplex();
@@ -253,6 +448,116 @@ public class GraphTest {
         assertTrue("should contain edge 3->11", $.doesEdgeExists(3,11));
     }
 
+    @Test
+    public void copyIsIndependent() {
+        Graph<Integer, Integer> $ = createComplex();
+        Graph<Integer, Integer> copy = new Graph<>($);
+        copy.removeVertex(11);
+        copy.addVertex(12, 12);
+        copy.addEdge(3, 12);
+        assertTrue($.doesEdgeExists(5, 11));
+        assertFalse($.doesEdgeExists(3, 12));
+        assertEquals(8, $.size());
+        assertEquals(Sets.newHashSet(5, 11, 2, 9, 10), $.getAllReachableFrom(5));
+        assertEquals(Sets.newHashSet(5), copy.getAllReachableFrom(5));
+        assertEquals(Sets.newHashSet(3, 8, 9, 10, 12), copy.getAllReachableFrom(3));
+    }
+
+    @Test
+    public void fromAdjacency() {
+        List<String> keys = Arrays.asList("a", "b", "c", "d");
+        Graph<String, String> $ = Graph.fromAdjacency(keys, keys, new int[]{0, 2, 3, 3, 4}, new int[]{1, 2, 2, 0});
+        assertEquals(4, $.size());
+        assertEquals(Arrays.asList("b", "c"), $.getSuccessors("a"));
+        assertEquals(Arrays.asList("a", "b"), $.getPredecessors("c"));
+        assertEquals(Arrays.asList("d"), $.getPredecessors("a"));
+        assertEquals(Arrays.asList("d", "a", "b", "c"), $.toposort());
+        $.addVertex("e", "e");
+        $.addEdge("c", "e");
+        $.addEdge("e", "a");
+        assertTrue($.isReachable("b", "a"));
+        assertTrue($.toposort().isEmpty());
+    }
+
+    @Test
+    public void neighbours() {
+        Graph<Integer, Integer> $ = createComplex();
+        assertEquals(Sets.newHashSet(5, 7), Sets.newHashSet($.getPredecessors(11)));
+        assertEquals(Sets.newHashSet(2, 9, 10), Sets.newHashSet($.getSuccessors(11)));
+        assertTrue($.getPredecessors(5).isEmpty());
+        $.removeIncomingEdgesOf(11);
+        assertTrue($.getPredecessors(11).isEmpty());
+        assertEquals(Sets.newHashSet(8), Sets.newHashSet($.getSuccessors(7)));
+        $.removeVertex(8);
+        assertTrue($.getSuccessors(7).isEmpty());
+        assertEquals(Sets.newHashSet(10), Sets.newHashSet($.getSuccessors(3)));
+    }
+
+    /**
+     * Asserts that no edge goes from a component to an earlier one.
+     */
+    private static void assertTopological(Graph<Integer, Integer> graph, List<Set<Integer>> components) {
+        for (int c = 0; c < components.size(); c++) {
+            for (int v : components.get(c)) {
+                for (int s : graph.getSuccessors(v)) {
+                    for (int earlier = 0; earlier < c; earlier++) {
+                        assertFalse(v + " -> " + s, components.get(earlier).contains(s));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void stronglyConnectedComponentsOfDag() {
+        Graph<Integer, Integer> $ = createComplex();
+        List<Set<Integer>> components = $.getStronglyConnectedComponents();
+        assertEquals(8, components.size());
+        components.forEach(c -> assertEquals(1, c.size()));
+        assertTopological($, components);
+    }
+
+    @Test
+    public void stronglyConnectedComponentsOfCycles() {
+        Graph<Integer, Integer> $ = createComplex();
+        $.addEdge(9, 7);
+        $.addEdge(2, 2);
+        List<Set<Integer>> components = $.getStronglyConnectedComponents();
+        assertTrue(components.contains(Sets.newHashSet(7, 8, 9, 11)));
+        assertEquals(5, components.size());
+        assertTopological($, components);
+
+        Graph<Integer, Set<Integer>> condensed = $.condense();
+        assertEquals(5, condensed.size());
+        assertEquals(5, condensed.toposort().size());
+        int cycle = components.indexOf(Sets.newHashSet(7, 8, 9, 11));
+        assertEquals(Sets.newHashSet(7, 8, 9, 11), condensed.getAllReachableFrom(cycle, 0).iterator().next());
+        assertEquals(Sets.newHashSet(components.indexOf(Sets.newHashSet(2)), components.indexOf(Sets.newHashSet(10))),
+                Sets.newHashSet(condensed.getSuccessors(cycle)));
+        for (int c = 0; c < components.size(); c++) {
+            assertEquals(components.get(c), condensed.getAllReachableFrom(c, 0).iterator().next());
+        }
+    }
+
+    @Test
+    public void condensationOfLongCycle() {
+        Graph<Integer, Integer> $ = new Graph<>();
+        int n = 1_000_000;
+        for (int i = 0; i < n; i++) {
+            $.addVertex(i, i);
+        }
+        for (int i = 1; i < n; i++) {
+            $.addEdge(i - 1, i);
+        }
+        $.addEdge(n / 2, 0);
+        Graph<Integer, Set<Integer>> condensed = $.condense();
+        assertEquals(n / 2, condensed.size());
+        List<Set<Integer>> sorted = condensed.toposort();
+        assertEquals(n / 2, sorted.size());
+        assertEquals(n / 2 + 1, sorted.get(0).size());
+        assertEquals(Sets.newHashSet(n / 2 + 1), sorted.get(1));
+    }
+
     private Graph<Integer, Integer> createComplex() {
         Graph<Integer,Integer> g = new Graph<>();
         g.addVertex(5,5);
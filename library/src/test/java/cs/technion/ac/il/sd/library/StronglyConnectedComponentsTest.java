@@ -0,0 +1,113 @@
+package cs.technion.ac.il.sd.library;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link StronglyConnectedComponents}
+ */
+public class StronglyConnectedComponentsTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    /**
+     * Edges given as adjacency rows: the successors of id are successors[offsets[id]..offsets[id + 1]).
+     */
+    private static StronglyConnectedComponents.Edges edges(int[] offsets, int[] successors, Set<Integer> skipped) {
+        return new StronglyConnectedComponents.Edges() {
+            @Override
+            public int[] row(int id) {
+                return successors;
+            }
+
+            @Override
+            public int start(int id) {
+                return offsets[id];
+            }
+
+            @Override
+            public int end(int id) {
+                return offsets[id + 1];
+            }
+
+            @Override
+            public boolean follows(int id) {
+                return !skipped.contains(id);
+            }
+        };
+    }
+
+    /**
+     * 0 -> 1 -> 2 -> 1, 2 -> 3, 3 -> 3, 4 -> 0
+     */
+    private final int[] offsets = {0, 1, 2, 4, 5, 6};
+    private final int[] successors = {1, 2, 1, 3, 3, 0};
+
+    private Set<Integer> membersOf(StronglyConnectedComponents $, int c) {
+        Set<Integer> members = new HashSet<>();
+        for (int i = $.start(c); i < $.end(c); i++) {
+            members.add($.member(i));
+        }
+        return members;
+    }
+
+    @Test
+    public void componentsAreInTopologicalOrder() {
+        StronglyConnectedComponents $ = new StronglyConnectedComponents();
+        assertEquals(4, $.run(5, edges(offsets, successors, new HashSet<>())));
+        assertEquals(0, $.componentOf(4));
+        assertEquals(1, $.componentOf(0));
+        assertEquals(2, $.componentOf(1));
+        assertEquals(2, $.componentOf(2));
+        assertEquals(3, $.componentOf(3));
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), membersOf($, 2));
+    }
+
+    @Test
+    public void cyclicComponents() {
+        StronglyConnectedComponents $ = new StronglyConnectedComponents();
+        $.run(5, edges(offsets, successors, new HashSet<>()));
+        assertFalse($.isCyclic($.componentOf(0)));
+        assertTrue($.isCyclic($.componentOf(1)));
+        assertTrue("a self loop is a cycle", $.isCyclic($.componentOf(3)));
+    }
+
+    @Test
+    public void verticesThatAreNotFollowedAreLeftOut() {
+        StronglyConnectedComponents $ = new StronglyConnectedComponents();
+        Set<Integer> skipped = new HashSet<>();
+        skipped.add(2);
+        assertEquals(4, $.run(5, edges(offsets, successors, skipped)));
+        assertEquals(-1, $.componentOf(2));
+        assertFalse("the cycle goes through 2", $.isCyclic($.componentOf(1)));
+    }
+
+    @Test
+    public void subsetFollowsOnlyEdgesBetweenItsVertices() {
+        StronglyConnectedComponents $ = new StronglyConnectedComponents();
+        assertEquals(3, $.run(new int[]{3, 0, 1, 9}, 3, edges(offsets, successors, new HashSet<>())));
+        assertEquals(0, $.componentOf(0));
+        assertEquals(1, $.componentOf(1));
+        assertEquals(2, $.componentOf(3));
+        assertEquals("not in the subset", -1, $.componentOf(2));
+        assertEquals("beyond size", -1, $.componentOf(9));
+        assertFalse("2 is not in the subset", $.isCyclic($.componentOf(1)));
+    }
+
+    @Test
+    public void runsAgainFromScratch() {
+        StronglyConnectedComponents $ = new StronglyConnectedComponents();
+        $.run(5, edges(offsets, successors, new HashSet<>()));
+        assertEquals(1, $.run(new int[]{2, 1}, 2, edges(offsets, successors, new HashSet<>())));
+        assertEquals(-1, $.componentOf(0));
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), membersOf($, 0));
+    }
+}
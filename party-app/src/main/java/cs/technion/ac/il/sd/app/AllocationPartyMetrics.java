@@ -0,0 +1,109 @@
+package cs.technion.ac.il.sd.app;
+
+import cs.technion.ac.il.sd.Attendance;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Diagnostics: measures the bytes every stage allocates on the thread that runs it, instead of its time, by the
+ * allocated bytes counter of the thread. Stages that run on other threads, as with the
+ * {@link ParallelLayerEvaluator}, are not counted. Meant for finding and enforcing allocation budgets in tests, as
+ * reading the counter is slower than reading the clock.
+ */
+public class AllocationPartyMetrics implements PartyMetrics {
+
+    private final com.sun.management.ThreadMXBean threads;
+    /** what reading the counter twice allocates by itself */
+    private final long overhead;
+    private final Map<Stage, long[]> stages = new EnumMap<>(Stage.class);
+
+    /**
+     * @throws UnsupportedOperationException - if the JVM does not count the bytes threads allocate.
+     */
+    public AllocationPartyMetrics() {
+        if (!isSupported())
+            throw new UnsupportedOperationException("thread allocation counters are not supported");
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        for (Stage stage : Stage.values())
+            stages.put(stage, new long[2]);
+        long least = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long start = allocated();
+            least = Math.min(least, allocated() - start);
+        }
+        overhead = least;
+    }
+
+    public static boolean isSupported() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .isThreadAllocatedMemorySupported();
+    }
+
+    private long allocated() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return - the bytes the current thread allocated so far.
+     */
+    @Override
+    public long start() {
+        return allocated();
+    }
+
+    @Override
+    public synchronized void record(Stage stage, long start) {
+        long[] stats = stages.get(stage);
+        stats[0]++;
+        stats[1] += Math.max(0, allocated() - start - overhead);
+    }
+
+    @Override
+    public void configurationLoaded(int invitees, int edges) {
+    }
+
+    @Override
+    public void published(Map<String, Attendance> attendance) {
+    }
+
+    /**
+     * @return - the amount of RSVPs recorded so far.
+     */
+    public synchronized long events() {
+        return stages.get(Stage.UPDATE_ATTENDANCE)[0];
+    }
+
+    /**
+     * @return - the bytes stage allocated so far.
+     */
+    public synchronized long bytes(Stage stage) {
+        return stages.get(stage)[1];
+    }
+
+    /**
+     * @return - the bytes stage allocated per RSVP, on average.
+     */
+    public synchronized double bytesPerEvent(Stage stage) {
+        return events() == 0 ? 0 : (double) bytes(stage) / events();
+    }
+
+    /**
+     * Forgets everything recorded so far, e.g. to leave out warm up.
+     */
+    public synchronized void reset() {
+        stages.values().forEach(stats -> Arrays.fill(stats, 0));
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder report = new StringBuilder("bytes per event:");
+        for (Stage stage : Stage.values())
+            report.append(String.format(" %s %.0f", stage, bytesPerEvent(stage)));
+        return report.toString();
+    }
+}
@@ -0,0 +1,21 @@
+package cs.technion.ac.il.sd.app;
+
+import cs.technion.ac.il.sd.Attendance;
+
+import java.util.Map;
+
+/**
+ * Receives the attendance as changes instead of as a full map per event. Applying every delta to the latest snapshot
+ * gives the full attendance.
+ */
+public interface AttendanceDeltaOutput {
+    /**
+     * @param attendance - the attendance of every invitee.
+     */
+    void snapshot(Map<String, Attendance> attendance);
+
+    /**
+     * @param changed - the new attendance of the invitees whose attendance changed since the previous call.
+     */
+    void delta(Map<String, Attendance> changed);
+}
@@ -0,0 +1,32 @@
+package cs.technion.ac.il.sd.app;
+
+import java.util.Optional;
+
+/**
+ * An attendance change of one invitee, as published by {@link cs.technion.ac.il.sd.Input}. An ingestion may reuse an
+ * event for a later change once its batch was consumed, so events must not be kept past their batch.
+ */
+public final class AttendanceEvent {
+    private String name;
+    private Optional<Boolean> attendance;
+
+    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+    public AttendanceEvent(String name, Optional<Boolean> attendance) {
+        this.name = name;
+        this.attendance = attendance;
+    }
+
+    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+    void set(String name, Optional<Boolean> attendance) {
+        this.name = name;
+        this.attendance = attendance;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Optional<Boolean> getAttendance() {
+        return attendance;
+    }
+}
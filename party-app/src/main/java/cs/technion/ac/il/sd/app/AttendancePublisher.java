@@ -0,0 +1,25 @@
+package cs.technion.ac.il.sd.app;
+
+import cs.technion.ac.il.sd.Attendance;
+
+import java.util.Map;
+
+/**
+ * Publishes the attendance after every recomputation.
+ */
+public interface AttendancePublisher {
+    /**
+     * @param attendance - an immutable snapshot of the attendance of every invitee, which can be kept without copying,
+     *                   unless this publisher does not {@link #keepsMaps()}.
+     * @param changed - the invitees whose attendance changed in this recomputation, with their new attendance.
+     */
+    void publish(Map<String, Attendance> attendance, Map<String, Attendance> changed);
+
+    /**
+     * @return - whether the maps given to publish may be kept after it returns. A publisher that does not keep them is
+     * given read only views instead, which the next recomputation changes, so that publishing allocates nothing.
+     */
+    default boolean keepsMaps() {
+        return true;
+    }
+}
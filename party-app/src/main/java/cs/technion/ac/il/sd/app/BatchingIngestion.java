@@ -0,0 +1,131 @@
+package cs.technion.ac.il.sd.app;
+
+import com.google.inject.Inject;
+import cs.technion.ac.il.sd.Input;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces bursts of events: a batch is delivered once it holds maxEvents events, or once window has passed since
+ * its first event, whichever comes first. Only the state after the last event of a batch is output.
+ * Its thread runs until it is closed, which closing its party does.
+ */
+public class BatchingIngestion implements RsvpIngestion {
+
+    private static final int DEFAULT_MAX_EVENTS = 64;
+    private static final long DEFAULT_WINDOW_MILLIS = 5;
+
+    private final int maxEvents;
+    private final long window;
+    private final TimeUnit unit;
+    private final List<Buffer> buffers = new ArrayList<>();
+    /** starts its thread only once the first deadline is scheduled */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rsvp-batching");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closed = false;
+
+    /**
+     * Batches up to 64 events that arrive within 5 milliseconds of each other's first.
+     */
+    @Inject
+    public BatchingIngestion() {
+        this(DEFAULT_MAX_EVENTS, DEFAULT_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxEvents - the largest batch. 1 keeps per-event semantics.
+     * @param window - the longest time an event waits for more events to join its batch.
+     */
+    public BatchingIngestion(int maxEvents, long window, TimeUnit unit) {
+        if (maxEvents < 1)
+            throw new IllegalArgumentException("maxEvents must be positive");
+        this.maxEvents = maxEvents;
+        this.window = window;
+        this.unit = unit;
+    }
+
+    @Override
+    public synchronized void listen(Input input, Consumer<List<AttendanceEvent>> batches) {
+        Buffer buffer = new Buffer(batches);
+        buffers.add(buffer);
+        input.listen((name, attendance) -> buffer.add(new AttendanceEvent(name, attendance)));
+    }
+
+    /**
+     * Delivers every pending batch now. The lock of a buffer is never taken while holding the lock of the ingestion.
+     */
+    public void flush() {
+        List<Buffer> buffers;
+        synchronized (this) {
+            buffers = new ArrayList<>(this.buffers);
+        }
+        buffers.forEach(Buffer::flush);
+    }
+
+    /**
+     * Drops every pending batch and stops the thread. Later events are dropped too.
+     */
+    @Override
+    public void close() {
+        List<Buffer> buffers;
+        synchronized (this) {
+            closed = true;
+            buffers = new ArrayList<>(this.buffers);
+        }
+        buffers.forEach(Buffer::drop);
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * The pending batch of one listener. Batches are delivered while holding its lock, so they are never reordered.
+     */
+    private class Buffer {
+        private final Consumer<List<AttendanceEvent>> batches;
+        private List<AttendanceEvent> pending = new ArrayList<>();
+        private ScheduledFuture<?> deadline;
+
+        Buffer(Consumer<List<AttendanceEvent>> batches) {
+            this.batches = batches;
+        }
+
+        synchronized void add(AttendanceEvent event) {
+            if (closed)
+                return;
+            pending.add(event);
+            if (pending.size() >= maxEvents)
+                flush();
+            else if (deadline == null)
+                deadline = scheduler.schedule(this::flush, window, unit);
+        }
+
+        synchronized void flush() {
+            cancel();
+            if (pending.isEmpty())
+                return;
+            List<AttendanceEvent> batch = pending;
+            pending = new ArrayList<>();
+            batches.accept(batch);
+        }
+
+        synchronized void drop() {
+            cancel();
+            pending.clear();
+        }
+
+        private void cancel() {
+            if (deadline != null) {
+                deadline.cancel(false);
+                deadline = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package cs.technion.ac.il.sd.app;
+
+import cs.technion.ac.il.sd.Attendance;
+
+import java.util.*;
+
+/**
+ * The invitees whose attendance changed in a recomputation, as a map from their names to their current attendance
+ * that is cleared and refilled by every recomputation instead of being made anew. It is sized by the most invitees a
+ * recomputation changed, not by the configuration. Once it is large enough, adding and reading allocate nothing; only
+ * iterating does.
+ */
+final class ChangedAttendance extends AbstractMap<String, Attendance> {
+
+    private final ConfigurationSnapshot configuration;
+    private final PersistentAttendance attendance;
+    private final BitSet members;
+    private int[] ids;
+    private int size;
+
+    ChangedAttendance(ConfigurationSnapshot configuration, PersistentAttendance attendance) {
+        this.configuration = configuration;
+        this.attendance = attendance;
+        this.members = new BitSet();
+        this.ids = new int[16];
+    }
+
+    void reset() {
+        for (int i = 0; i < size; i++) {
+            members.clear(ids[i]);
+        }
+        size = 0;
+    }
+
+    void add(int id) {
+        if (!members.get(id)) {
+            members.set(id);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+    @Override
+    public Attendance get(Object key) {
+        int id = configuration.idOf(key);
+        return id >= 0 && id < configuration.inviteeCount && members.get(id) ? attendance.get(id) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int id = configuration.idOf(key);
+        return id >= 0 && id < configuration.inviteeCount && members.get(id);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<Entry<String, Attendance>> entrySet() {
+        return new AbstractSet<Entry<String, Attendance>>() {
+            @Override
+            public Iterator<Entry<String, Attendance>> iterator() {
+                return new Iterator<Entry<String, Attendance>>() {
+                    private int i = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < size;
+                    }
+
+                    @Override
+                    public Entry<String, Attendance> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int id = ids[i++];
+                        return new SimpleImmutableEntry<>(configuration.names[id], attendance.get(id));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
@@ -1,19 +1,28 @@
 package cs.technion.ac.il.sd.app;
 
-import com.google.common.collect.Lists;
-
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Created by Nati on 6/11/2016.
  */
 public class Configuration {
 
+    private static final int MAPPED_WINDOW_SIZE = 1 << 30;
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+
     private HashSet<String> invitees;
     private HashMap<String, Set<String>> nameToDepNames;
 
@@ -23,26 +32,131 @@ public class Configuration {
 
     }
 
+    Configuration(HashSet<String> invitees, HashMap<String, Set<String>> nameToDepNames) {
+        this.invitees = invitees;
+        this.nameToDepNames = nameToDepNames;
+    }
+
     public static Configuration fromFile(File file) {
 
         Configuration c = new Configuration();
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            br.lines().forEach(l -> {
-                String trm = l.trim();
-                if (!trm.equals(""))
-                    c.parseLine(trm);
-            });
+        try (Reader reader = new FileReader(file)) {
+            new ConfigurationParser(c::add).parse(reader);
         } catch (IOException e) {
             throw new AssertionError();
         }
         return c;
     }
 
-    private void parseLine(String line) {
-        String[] args = line.split(",");
-        String name = args[0].trim();
-        Set<String> deps = new HashSet<>(args.length > 1 ?
-                Lists.newArrayList(Arrays.copyOfRange(args, 1, args.length)).stream().map(String::trim).collect(Collectors.toList()) : new ArrayList<>());
+    /**
+     * Parses a UTF-8 file by memory mapping it, without copying it through a reader. Gives the same configuration as
+     * {@link #fromFile(File)} gives for a UTF-8 file.
+     */
+    public static Configuration fromMappedFile(File file) {
+        return fromMappedFile(file, MAPPED_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize - the amount of bytes to map at once. A window is doubled when a line does not fit in it.
+     */
+    public static Configuration fromMappedFile(File file, int windowSize) {
+
+        Configuration c = new Configuration();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            new ConfigurationParser(c::add).parse(channel, windowSize);
+        } catch (IOException e) {
+            throw new AssertionError();
+        }
+        return c;
+    }
+
+    /**
+     * Parses chunks of a UTF-8 file in parallel on the common pool. Gives the same configuration as
+     * {@link #fromMappedFile(File)}.
+     */
+    public static Configuration fromFileInParallel(File file) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long chunks = Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, file.length() / MIN_CHUNK_SIZE);
+        return fromFileInParallel(file, pool, (int) Math.max(1, chunks));
+    }
+
+    /**
+     * Splits a UTF-8 file into chunks of lines, parses each chunk into partial maps on pool, and then merges the partial
+     * maps one after the other in the order of the chunks, so the last line of a name wins just as it does when parsing
+     * in one go.
+     * @param chunks - the amount of chunks to split the file into.
+     * @throws UncheckedIOException - if the file can't be read.
+     * @throws IllegalStateException - if interrupted while reading or waiting for the chunks, with the interrupt flag
+     * set.
+     */
+    public static Configuration fromFileInParallel(File file, ForkJoinPool pool, int chunks) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Chunk> parsed = pool.submit(() -> IntStream.range(0, chunks).parallel()
+                    .mapToObj(i -> Chunk.parse(channel, size * i / chunks, size * (i + 1) / chunks))
+                    .collect(Collectors.toList())).get();
+            Chunk merged = parsed.get(0);
+            for (int i = 1; i < parsed.size(); i++)
+                merged.merge(parsed.get(i));
+            Configuration c = new Configuration();
+            c.invitees = merged.invitees;
+            c.nameToDepNames = merged.lines;
+            c.invitees.forEach(i -> c.nameToDepNames.putIfAbsent(i, new HashSet<>()));
+            return c;
+        } catch (ClosedByInterruptException e) {
+            throw new IllegalStateException("interrupted while parsing " + file, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while parsing " + file, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException("parsing " + file + " failed", cause);
+        }
+    }
+
+    /**
+     * The invitees of a chunk of lines, and the dependencies of those that have a line of their own in it. Names that
+     * are only dependencies are left out of lines, so that merging cannot mistake them for names with no dependencies.
+     */
+    private static class Chunk {
+        private final HashSet<String> invitees = new HashSet<>();
+        private final HashMap<String, Set<String>> lines = new HashMap<>();
+
+        static Chunk parse(FileChannel channel, long from, long to) {
+            Chunk chunk = new Chunk();
+            try {
+                new ConfigurationParser(chunk::add).parse(channel, from, to, MAPPED_WINDOW_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return chunk;
+        }
+
+        private void add(String name, Set<String> deps) {
+            invitees.add(name);
+            deps.stream().filter(d -> !d.isEmpty()).forEach(invitees::add);
+            lines.put(name, deps);
+        }
+
+        /**
+         * Makes this chunk this chunk followed by next.
+         */
+        void merge(Chunk next) {
+            invitees.addAll(next.invitees);
+            lines.putAll(next.lines);
+        }
+    }
+
+    /**
+     * Adds a parsed line: the dependencies of name are replaced by deps, and each non empty dependency is invited too.
+     */
+    void add(String name, Set<String> deps) {
         invitees.add(name);
 
         for (String d : deps) {
@@ -0,0 +1,10 @@
+package cs.technion.ac.il.sd.app;
+
+import java.io.File;
+
+/**
+ * Loads the configuration of a party from its file.
+ */
+public interface ConfigurationLoader {
+    ConfigurationSnapshot load(File file);
+}
@@ -0,0 +1,206 @@
+package cs.technion.ac.il.sd.app;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Tokenizes configuration lines straight out of a char buffer. Lines end at '\n' or '\r', and are read like
+ * String.trim() followed by String.split(",") would read them, but the only allocations are the dependency set of each
+ * line and the first occurrence of each name.
+ */
+final class ConfigurationParser {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final BiConsumer<String, Set<String>> lines;
+    private final NameTable names = new NameTable();
+
+    /** the current line of a mapped file, decoded */
+    private char[] line = new char[256];
+    private CharsetDecoder decoder;
+
+    /**
+     * @param lines - gets the name and the dependencies of every line, in order.
+     */
+    ConfigurationParser(BiConsumer<String, Set<String>> lines) {
+        this.lines = lines;
+    }
+
+    void parse(Reader reader) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        int filled = 0, scanned = 0, lineStart = 0;
+        while (true) {
+            if (filled == buffer.length) {
+                if (lineStart == 0) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                } else {
+                    System.arraycopy(buffer, lineStart, buffer, 0, filled - lineStart);
+                    filled -= lineStart;
+                    scanned -= lineStart;
+                    lineStart = 0;
+                }
+            }
+            int read = reader.read(buffer, filled, buffer.length - filled);
+            if (read == -1) {
+                break;
+            }
+            filled += read;
+            for (; scanned < filled; scanned++) {
+                char c = buffer[scanned];
+                if (c == '\n' || c == '\r') {
+                    parseLine(buffer, lineStart, scanned);
+                    lineStart = scanned + 1;
+                }
+            }
+        }
+        parseLine(buffer, lineStart, filled);
+    }
+
+    /**
+     * Parses a UTF-8 file straight out of memory mapped windows of it. Every window starts at a line start, and is
+     * doubled when a single line does not fit in it, so files of any size can be parsed.
+     * @param windowSize - the amount of bytes to map at once.
+     */
+    void parse(FileChannel channel, int windowSize) throws IOException {
+        parse(channel, 0, Long.MAX_VALUE, windowSize);
+    }
+
+    /**
+     * Parses the lines of a mapped UTF-8 file that start in [from, to). The line running through from is left to
+     * whoever parses the bytes before it, and the last line is parsed to its end even if it runs past to, so the
+     * chunks of a file can be parsed independently.
+     */
+    void parse(FileChannel channel, long from, long to, int windowSize) throws IOException {
+        long size = channel.size();
+        boolean skipping = from > 0;
+        long position = skipping ? from - 1 : from;
+        while (position < size) {
+            int length = (int) Math.min(windowSize, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                // no byte of a multi-byte UTF-8 sequence is ASCII, so line ends can be found without decoding
+                byte b = window.get(i);
+                if (b == '\n' || b == '\r') {
+                    if (!skipping) {
+                        parseLine(window, lineStart, i);
+                    }
+                    skipping = false;
+                    lineStart = i + 1;
+                    if (position + lineStart >= to) {
+                        return;
+                    }
+                }
+            }
+            if (position + length == size) {
+                if (!skipping) {
+                    parseLine(window, lineStart, length);
+                }
+                return;
+            }
+            if (skipping) {
+                position += length;
+            } else if (lineStart == 0) {
+                if (windowSize == Integer.MAX_VALUE) {
+                    throw new IllegalStateException("line at " + position + " is too long to be mapped");
+                }
+                windowSize = (int) Math.min(Integer.MAX_VALUE, 2L * windowSize);
+            } else {
+                position += lineStart;
+            }
+        }
+    }
+
+    /**
+     * Parses the UTF-8 line in bytes[start..end), decoding it into a reused char buffer.
+     */
+    private void parseLine(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        if (line.length < length) {
+            line = new char[Math.max(length, line.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = bytes.get(start + i);
+            if (b < 0) {
+                parseLine(line, 0, decode(bytes, start, end));
+                return;
+            }
+            line[i] = (char) b;
+        }
+        parseLine(line, 0, length);
+    }
+
+    /**
+     * @return - the amount of chars bytes[start..end) decodes into the line buffer.
+     */
+    private int decode(ByteBuffer bytes, int start, int end) {
+        if (decoder == null) {
+            decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        bytes.limit(end);
+        bytes.position(start);
+        CharBuffer chars = CharBuffer.wrap(line);
+        decoder.reset();
+        decoder.decode(bytes, chars, true);
+        decoder.flush(chars);
+        bytes.clear();
+        return chars.position();
+    }
+
+    /**
+     * Parses the line in chars[start..end). Blank lines are skipped.
+     */
+    void parseLine(char[] chars, int start, int end) {
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+        // split drops trailing empty tokens
+        while (end > start && chars[end - 1] == ',') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+        String name = null;
+        Set<String> deps = new HashSet<>();
+        int tokenStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || chars[i] == ',') {
+                String token = token(chars, tokenStart, i);
+                if (name == null) {
+                    name = token;
+                } else {
+                    deps.add(token);
+                }
+                tokenStart = i + 1;
+            }
+        }
+        lines.accept(name, deps);
+    }
+
+    private String token(char[] chars, int start, int end) {
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+        return names.intern(chars, start, end);
+    }
+}
@@ -0,0 +1,250 @@
+package cs.technion.ac.il.sd.app;
+
+import cs.technion.ac.il.sd.library.Graph;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A configuration as a string table and int rows of dependencies, which can be written to a binary file and read
+ * back with a single bulk read, so neither the text nor the graph has to be parsed or built an edge at a time.
+ * The rows are never changed once built, so parties of the same configuration can share one snapshot.
+ *
+ * The file is: magic, version, the length and CRC32 of the text file it was made from, the names (invitees first),
+ * the dependency rows of the invitees, and a CRC32 of everything before it.
+ */
+public final class ConfigurationSnapshot {
+
+    private static final int MAGIC = 0x50534e50;
+    static final int VERSION = 1;
+
+    /** invitees are names[0..inviteeCount), the rest are dependencies that are not invitees, such as "" */
+    final String[] names;
+    final int inviteeCount;
+    /** the dependencies of names[id] are depIds[depOffsets[id]..depOffsets[id + 1]) */
+    final int[] depOffsets;
+    final int[] depIds;
+    /** whoever depends on invitee id, in succIds[succOffsets[id]..succOffsets[id + 1]) */
+    final int[] succOffsets;
+    final int[] succIds;
+    private final Map<String, Integer> ids;
+    private Configuration configuration;
+
+    private ConfigurationSnapshot(String[] names, int inviteeCount, int[] depOffsets, int[] depIds,
+                                  Map<String, Integer> ids) {
+        this.names = names;
+        this.inviteeCount = inviteeCount;
+        this.depOffsets = depOffsets;
+        this.depIds = depIds;
+        this.ids = ids;
+        this.succOffsets = new int[inviteeCount + 1];
+        for (int id : depIds) {
+            if (id < inviteeCount) {
+                succOffsets[id + 1]++;
+            }
+        }
+        for (int id = 0; id < inviteeCount; id++) {
+            succOffsets[id + 1] += succOffsets[id];
+        }
+        this.succIds = new int[succOffsets[inviteeCount]];
+        int[] filled = Arrays.copyOf(succOffsets, inviteeCount);
+        for (int id = 0; id < inviteeCount; id++) {
+            for (int i = depOffsets[id]; i < depOffsets[id + 1]; i++) {
+                if (depIds[i] < inviteeCount) {
+                    succIds[filled[depIds[i]]++] = id;
+                }
+            }
+        }
+    }
+
+    private ConfigurationSnapshot(String[] names, int inviteeCount, int[] depOffsets, int[] depIds) {
+        this(names, inviteeCount, depOffsets, depIds, new HashMap<>(names.length * 4 / 3 + 1));
+        for (int id = 0; id < names.length; id++) {
+            ids.put(names[id], id);
+        }
+    }
+
+    /**
+     * @return - the amount of dependencies of invitees on invitees, which leaves out dependencies such as "".
+     */
+    int edgeCount() {
+        return succIds.length;
+    }
+
+    public static ConfigurationSnapshot of(Configuration configuration) {
+        List<String> names = new ArrayList<>(configuration.getInvitees());
+        int inviteeCount = names.size();
+        Map<String, Integer> ids = new HashMap<>(inviteeCount * 4 / 3 + 1);
+        for (int id = 0; id < inviteeCount; id++) {
+            ids.put(names.get(id), id);
+        }
+        int[] depOffsets = new int[inviteeCount + 1];
+        for (int id = 0; id < inviteeCount; id++) {
+            depOffsets[id + 1] = depOffsets[id] + configuration.getDependenciesOf(names.get(id)).size();
+        }
+        int[] depIds = new int[depOffsets[inviteeCount]];
+        int next = 0;
+        for (int id = 0; id < inviteeCount; id++) {
+            for (String d : configuration.getDependenciesOf(names.get(id))) {
+                depIds[next++] = ids.computeIfAbsent(d, x -> {
+                    names.add(x);
+                    return names.size() - 1;
+                });
+            }
+        }
+        ConfigurationSnapshot snapshot = new ConfigurationSnapshot(names.toArray(new String[0]), inviteeCount,
+                depOffsets, depIds, ids);
+        snapshot.configuration = configuration;
+        return snapshot;
+    }
+
+    /**
+     * @return - the snapshot written for text, or a new one parsed from text and written to snapshotFile if there is
+     * none or it was written for another version of text.
+     */
+    public static ConfigurationSnapshot load(File text, File snapshotFile) {
+        long checksum = checksum(text);
+        Optional<ConfigurationSnapshot> written = read(snapshotFile, text.length(), checksum);
+        if (written.isPresent()) {
+            return written.get();
+        }
+        ConfigurationSnapshot snapshot = of(Configuration.fromFile(text));
+        try {
+            snapshot.write(snapshotFile, text.length(), checksum);
+        } catch (IOException e) {
+            // a snapshot is only a shortcut, the next load will try to write it again
+        }
+        return snapshot;
+    }
+
+    static long checksum(File file) {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = new FileInputStream(file)) {
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                crc.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new AssertionError();
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the snapshot to a temporary file and moves it over file, so a snapshot is never seen half written.
+     */
+    void write(File file, long textLength, long textChecksum) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporary)), new CRC32());
+        try (DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(textLength);
+            out.writeLong(textChecksum);
+            out.writeInt(names.length);
+            out.writeInt(inviteeCount);
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (int offset : depOffsets) {
+                out.writeInt(offset);
+            }
+            for (int id : depIds) {
+                out.writeInt(id);
+            }
+            out.writeLong(checked.getChecksum().getValue());
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return - the snapshot in file, or empty if there is none, it is damaged, or it was not written by this version
+     * for a text of the given length and checksum.
+     */
+    static Optional<ConfigurationSnapshot> read(File file, long textLength, long textChecksum) {
+        if (!file.isFile()) {
+            return Optional.empty();
+        }
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        if (bytes.length < 32) {
+            return Optional.empty();
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        if (in.getLong(bytes.length - 8) != crc.getValue() || in.getInt() != MAGIC || in.getInt() != VERSION
+                || in.getLong() != textLength || in.getLong() != textChecksum) {
+            return Optional.empty();
+        }
+        String[] names = new String[in.getInt()];
+        int inviteeCount = in.getInt();
+        for (int id = 0; id < names.length; id++) {
+            int length = in.getInt();
+            names[id] = new String(bytes, in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        }
+        int[] depOffsets = new int[inviteeCount + 1];
+        in.asIntBuffer().get(depOffsets);
+        in.position(in.position() + 4 * depOffsets.length);
+        int[] depIds = new int[depOffsets[inviteeCount]];
+        in.asIntBuffer().get(depIds);
+        return Optional.of(new ConfigurationSnapshot(names, inviteeCount, depOffsets, depIds));
+    }
+
+    /**
+     * @return - the id of name, or -1 if it is neither an invitee nor a dependency.
+     */
+    int idOf(Object name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return - the invitees, in the order of their ids in the snapshot and in {@link #toGraph()}.
+     */
+    public List<String> getInvitees() {
+        return Collections.unmodifiableList(Arrays.asList(names).subList(0, inviteeCount));
+    }
+
+    /**
+     * @return - the configuration of the snapshot, the same one every time.
+     */
+    public synchronized Configuration configuration() {
+        if (configuration == null) {
+            HashSet<String> invitees = new HashSet<>(Arrays.asList(names).subList(0, inviteeCount));
+            HashMap<String, Set<String>> nameToDepNames = new HashMap<>(inviteeCount * 4 / 3 + 1);
+            for (int id = 0; id < inviteeCount; id++) {
+                Set<String> deps = new HashSet<>();
+                for (int i = depOffsets[id]; i < depOffsets[id + 1]; i++) {
+                    deps.add(names[depIds[i]]);
+                }
+                nameToDepNames.put(names[id], deps);
+            }
+            configuration = new Configuration(invitees, nameToDepNames);
+        }
+        return configuration;
+    }
+
+    /**
+     * @return - a new graph of the invitees, with an edge from every dependency to whoever depends on it. Dependencies
+     * that are not invitees have no vertex, so they have no edges.
+     */
+    public Graph<String, String> toGraph() {
+        List<String> invitees = Arrays.asList(names).subList(0, inviteeCount);
+        return Graph.fromAdjacency(invitees, invitees, succOffsets, succIds);
+    }
+}
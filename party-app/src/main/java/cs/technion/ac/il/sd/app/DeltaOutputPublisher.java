@@ -0,0 +1,41 @@
+package cs.technion.ac.il.sd.app;
+
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import cs.technion.ac.il.sd.Attendance;
+
+import java.util.Map;
+
+/**
+ * Sends only the changes to an {@link AttendanceDeltaOutput}, with a full snapshot first and then once every
+ * snapshotInterval publications, so a receiver that missed deltas can resynchronize. Recomputations that changed
+ * nothing send nothing.
+ */
+public class DeltaOutputPublisher implements AttendancePublisher {
+
+    private static final int DEFAULT_SNAPSHOT_INTERVAL = 1000;
+
+    private final AttendanceDeltaOutput output;
+    private final int snapshotInterval;
+    private long published = 0;
+
+    @Inject
+    public DeltaOutputPublisher(AttendanceDeltaOutput output) {
+        this(output, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public DeltaOutputPublisher(AttendanceDeltaOutput output, int snapshotInterval) {
+        if (snapshotInterval < 1)
+            throw new IllegalArgumentException("snapshotInterval must be positive");
+        this.output = output;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @Override
+    public void publish(Map<String, Attendance> attendance, Map<String, Attendance> changed) {
+        if (published++ % snapshotInterval == 0)
+            output.snapshot(Maps.newHashMap(attendance));
+        else if (!changed.isEmpty())
+            output.delta(changed);
+    }
+}
@@ -0,0 +1,134 @@
+package cs.technion.ac.il.sd.app;
+
+import com.google.inject.Inject;
+import cs.technion.ac.il.sd.Input;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Lets any number of threads publish events at once. Publishing only enqueues the event; a single writer thread takes
+ * the events in the order they were enqueued and delivers them, so the party state is only ever touched by one thread
+ * and producers never wait for a recomputation.
+ */
+public class EventLoopIngestion implements RsvpIngestion {
+
+    private final EventScheduler scheduler;
+    private final int maxBatch;
+    private final BlockingQueue<AttendanceEvent> queue = new LinkedBlockingQueue<>();
+    private Thread writer;
+    private long enqueued = 0;
+    private long delivered = 0;
+    /** the first failure since it was last reported by awaitIdle */
+    private RuntimeException failure;
+    private boolean stopped = false;
+
+    /**
+     * Delivers every event on its own.
+     */
+    @Inject
+    public EventLoopIngestion(EventScheduler scheduler) {
+        this(scheduler, 1);
+    }
+
+    /**
+     * @param scheduler - provides the writer thread.
+     * @param maxBatch - the most events the writer takes off the queue at once to deliver as a batch. 1 keeps
+     *                 per-event semantics.
+     */
+    public EventLoopIngestion(EventScheduler scheduler, int maxBatch) {
+        if (maxBatch < 1)
+            throw new IllegalArgumentException("maxBatch must be positive");
+        this.scheduler = scheduler;
+        this.maxBatch = maxBatch;
+    }
+
+    @Override
+    public synchronized void listen(Input input, Consumer<List<AttendanceEvent>> batches) {
+        if (writer != null)
+            throw new IllegalStateException("an event loop serves a single listener");
+        writer = scheduler.start("rsvp-event-loop", () -> loop(batches));
+        input.listen((name, attendance) -> enqueue(new AttendanceEvent(name, attendance)));
+    }
+
+    private void enqueue(AttendanceEvent event) {
+        synchronized (this) {
+            if (stopped)
+                throw new IllegalStateException("the event loop is closed");
+            enqueued++;
+        }
+        queue.add(event);
+    }
+
+    private void loop(Consumer<List<AttendanceEvent>> batches) {
+        List<AttendanceEvent> batch = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatch - 1);
+                try {
+                    batches.accept(batch);
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        if (failure == null)
+                            failure = e;
+                    }
+                }
+                synchronized (this) {
+                    delivered += batch.size();
+                    notifyAll();
+                }
+                batch = new ArrayList<>();
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } finally {
+            synchronized (this) {
+                stopped = true;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until every event enqueued so far has been delivered, or until the loop stopped. A failure is reported only
+     * once, so the next call only reports batches that failed after it.
+     * @throws IllegalStateException - if delivering a batch failed since the last call, or if the loop was closed
+     *                               before delivering every event.
+     */
+    public synchronized void awaitIdle() throws InterruptedException {
+        while (delivered < enqueued && !stopped)
+            wait();
+        if (failure != null) {
+            RuntimeException failure = this.failure;
+            this.failure = null;
+            throw new IllegalStateException("delivering a batch failed", failure);
+        }
+        if (delivered < enqueued)
+            throw new IllegalStateException("the event loop was closed with " + (enqueued - delivered)
+                    + " events that were not delivered");
+    }
+
+    /**
+     * Stops the writer. Events that were not delivered yet are dropped, and later events are rejected. If interrupted
+     * while waiting for the writer to stop, returns at once with the interrupt flag set.
+     */
+    @Override
+    public void close() {
+        Thread writer;
+        synchronized (this) {
+            writer = this.writer;
+        }
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package cs.technion.ac.il.sd.app;
+
+/**
+ * Provides the threads that parties process their events on.
+ */
+public interface EventScheduler {
+    /**
+     * Starts running loop on a thread of its own, which must not keep the JVM alive.
+     * @return - the started thread.
+     */
+    Thread start(String name, Runnable loop);
+}
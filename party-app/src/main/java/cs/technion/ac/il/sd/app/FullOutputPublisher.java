@@ -0,0 +1,27 @@
+package cs.technion.ac.il.sd.app;
+
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Output;
+
+import java.util.Map;
+
+/**
+ * Sends a copy of the whole attendance to {@link Output} every time, which the output may change or keep. Outputs that
+ * never change the map can use {@link SnapshotOutputPublisher} instead, which does not copy.
+ */
+public class FullOutputPublisher implements AttendancePublisher {
+
+    private final Output output;
+
+    @Inject
+    public FullOutputPublisher(Output output) {
+        this.output = output;
+    }
+
+    @Override
+    public void publish(Map<String, Attendance> attendance, Map<String, Attendance> changed) {
+        output.attendance(Maps.newHashMap(attendance));
+    }
+}
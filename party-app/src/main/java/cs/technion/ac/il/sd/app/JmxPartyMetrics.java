@@ -0,0 +1,127 @@
+package cs.technion.ac.il.sd.app;
+
+import com.google.inject.Inject;
+import cs.technion.ac.il.sd.Attendance;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a latency histogram of every stage and registers itself in the platform MBean server as
+ * cs.technion.ac.il.sd:type=Party,name=&lt;name&gt;, until closed, which closing its party does.
+ * The attendance gauge is counted from the last published snapshot when it is read, so publishing costs nothing.
+ */
+public class JmxPartyMetrics implements PartyMetrics, PartyMetricsMXBean {
+
+    private static final AtomicInteger parties = new AtomicInteger();
+
+    private final ObjectName name;
+    private final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+    private volatile int invitees;
+    private volatile int edges;
+    private volatile Map<String, Attendance> attendance;
+
+    /**
+     * Registers as party-&lt;n&gt;, n counting the parties of this JVM.
+     */
+    @Inject
+    public JmxPartyMetrics() {
+        this("party-" + parties.incrementAndGet());
+    }
+
+    public JmxPartyMetrics(String name) {
+        for (Stage stage : Stage.values())
+            stages.put(stage, new LatencyHistogram());
+        try {
+            this.name = objectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.name);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("can't register party " + name, e);
+        }
+    }
+
+    public static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("cs.technion.ac.il.sd:type=Party,name=" + ObjectName.quote(name));
+    }
+
+    public ObjectName getObjectName() {
+        return name;
+    }
+
+    @Override
+    public long start() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void record(Stage stage, long start) {
+        stages.get(stage).record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void configurationLoaded(int invitees, int edges) {
+        this.invitees = invitees;
+        this.edges = edges;
+    }
+
+    @Override
+    public void published(Map<String, Attendance> attendance) {
+        this.attendance = attendance;
+    }
+
+    @Override
+    public int getInvitees() {
+        return invitees;
+    }
+
+    @Override
+    public int getEdges() {
+        return edges;
+    }
+
+    @Override
+    public Map<String, Integer> getAttendance() {
+        int[] counts = new int[Attendance.values().length];
+        Map<String, Attendance> snapshot = attendance;
+        if (snapshot != null)
+            snapshot.values().forEach(a -> counts[a.ordinal()]++);
+        Map<String, Integer> distribution = new LinkedHashMap<>();
+        for (Attendance a : Attendance.values())
+            distribution.put(a.name(), counts[a.ordinal()]);
+        return distribution;
+    }
+
+    @Override
+    public Map<String, StageStatistics> getStages() {
+        Map<String, StageStatistics> statistics = new LinkedHashMap<>();
+        stages.forEach((stage, histogram) -> {
+            long count = histogram.count();
+            statistics.put(stage.name(), new StageStatistics(count,
+                    count == 0 ? 0 : histogram.total() / 1e3 / count,
+                    histogram.quantile(0.5) / 1e3,
+                    histogram.quantile(0.99) / 1e3,
+                    histogram.max() / 1e3));
+        });
+        return statistics;
+    }
+
+    /**
+     * Unregisters from the platform MBean server.
+     */
+    @Override
+    public void close() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+        } catch (JMException e) {
+            throw new IllegalStateException("can't unregister " + name, e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package cs.technion.ac.il.sd.app;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds, with a bucket for every power of two, so recording never allocates and
+ * quantiles are accurate up to a factor of two. Recorded by one thread at a time and read by any.
+ */
+class LatencyHistogram {
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long duration = Math.max(0, nanos);
+        buckets.incrementAndGet(duration == 0 ? 0 : 63 - Long.numberOfLeadingZeros(duration));
+        count.incrementAndGet();
+        total.addAndGet(duration);
+        if (duration > max.get())
+            max.set(duration);
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    long total() {
+        return total.get();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * @param p - between 0 and 1.
+     * @return - the upper bound of the bucket the p-th quantile falls in, or 0 if nothing was recorded.
+     */
+    long quantile(double p) {
+        long rank = (long) Math.ceil(p * count.get());
+        long seen = 0;
+        for (int i = 0; i < 64; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0)
+                return Math.min(max.get(), i >= 62 ? Long.MAX_VALUE : (2L << i) - 1);
+        }
+        return 0;
+    }
+}
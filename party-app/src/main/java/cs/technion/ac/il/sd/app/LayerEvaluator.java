@@ -0,0 +1,17 @@
+package cs.technion.ac.il.sd.app;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Evaluates the layers of a topological sort: every invitee in a layer depends only on invitees of earlier layers.
+ */
+public interface LayerEvaluator {
+    /**
+     * The layers are consecutive ranges of one array, so that sorting can reuse it for every recomputation.
+     * @param order - the ids of the invitees of all the layers, layer after layer.
+     * @param layerEnds - layer i is order[layerEnds[i - 1]..layerEnds[i]), where layerEnds[-1] is 0.
+     * @param layers - the amount of layers.
+     * @param evaluation - called once for every invitee. All the calls for a layer end before the next layer starts.
+     */
+    void evaluate(int[] order, int[] layerEnds, int layers, IntConsumer evaluation);
+}
@@ -0,0 +1,73 @@
+package cs.technion.ac.il.sd.app;
+
+/**
+ * Interns names read from a char buffer, so that every occurrence of a name after the first one is looked up without
+ * allocating anything.
+ */
+final class NameTable {
+
+    /** open addressing with linear probing, at most half full */
+    private String[] names = new String[64];
+    private int[] hashes = new int[64];
+    private int size;
+
+    /**
+     * @return - the name made of chars[start..end), the same instance for every occurrence of it.
+     */
+    String intern(char[] chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = names.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String name = names[slot];
+            if (name == null) {
+                name = new String(chars, start, end - start);
+                names[slot] = name;
+                hashes[slot] = hash;
+                if (++size * 2 > names.length) {
+                    grow();
+                }
+                return name;
+            }
+            if (hashes[slot] == hash && matches(name, chars, start, end)) {
+                return name;
+            }
+        }
+    }
+
+    private static boolean matches(String name, char[] chars, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (name.charAt(i - start) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void grow() {
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        names = new String[oldNames.length * 2];
+        hashes = new int[oldNames.length * 2];
+        int mask = names.length - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null) {
+                int slot = spread(oldHashes[i]) & mask;
+                while (names[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                names[slot] = oldNames[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package cs.technion.ac.il.sd.app;
+
+import cs.technion.ac.il.sd.Attendance;
+
+import java.util.Map;
+
+/**
+ * Records nothing.
+ */
+public class NoPartyMetrics implements PartyMetrics {
+    @Override
+    public long start() {
+        return 0;
+    }
+
+    @Override
+    public void record(Stage stage, long start) {
+    }
+
+    @Override
+    public void configurationLoaded(int invitees, int edges) {
+    }
+
+    @Override
+    public void published(Map<String, Attendance> attendance) {
+    }
+}
@@ -0,0 +1,47 @@
+package cs.technion.ac.il.sd.app;
+
+import com.google.inject.Inject;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates the invitees of each layer in parallel on a {@link ForkJoinPool}, one layer at a time.
+ */
+public class ParallelLayerEvaluator implements LayerEvaluator {
+
+    private static final int DEFAULT_THRESHOLD = 256;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    @Inject
+    public ParallelLayerEvaluator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param pool - the pool that evaluates the layers.
+     * @param threshold - layers smaller than this are evaluated on the calling thread, as splitting them costs more
+     *                  than it saves.
+     */
+    public ParallelLayerEvaluator(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void evaluate(int[] order, int[] layerEnds, int layers, IntConsumer evaluation) {
+        int start = 0;
+        for (int layer = 0; layer < layers; layer++) {
+            int from = start, to = layerEnds[layer];
+            if (to - from < threshold) {
+                for (int i = from; i < to; i++)
+                    evaluation.accept(order[i]);
+            } else
+                pool.submit(() -> IntStream.range(from, to).parallel().forEach(i -> evaluation.accept(order[i]))).join();
+            start = to;
+        }
+    }
+}
@@ -2,6 +2,13 @@ package cs.technion.ac.il.sd.app;
 
 import java.io.File;
 
-public interface PartyApp {
+public interface PartyApp extends AutoCloseable {
   void processFile(File file);
+
+  /**
+   * Ends the party: later events are ignored, and whatever the party registered or started is released.
+   */
+  @Override
+  default void close() {
+  }
 }
@@ -0,0 +1,85 @@
+package cs.technion.ac.il.sd.app;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Module;
+import com.google.inject.Provides;
+import com.google.inject.util.Modules;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+
+import java.io.File;
+
+/**
+ * Hosts many parties in one JVM. Parties whose configuration files have the same content share one immutable
+ * configuration snapshot, which is also their dependency graph, so a party only keeps its own attendance.
+ * Every party is made by the same injector, which gives it the Input and Output it is opened with.
+ */
+public class PartyHost {
+
+    private final SharedConfigurationLoader loader;
+    private final Injector injector;
+    /** the Input and Output of the party being made */
+    private Input input;
+    private Output output;
+
+    public PartyHost() {
+        this(new PartyModule(), new TextConfigurationLoader());
+    }
+
+    /**
+     * @param module - the bindings of every party, except for Input, Output and ConfigurationLoader.
+     * @param loader - loads the configurations that are not shared yet.
+     */
+    public PartyHost(Module module, ConfigurationLoader loader) {
+        this.loader = new SharedConfigurationLoader(loader);
+        this.injector = Guice.createInjector(Modules.override(module).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(ConfigurationLoader.class).toInstance(PartyHost.this.loader);
+            }
+
+            @Provides
+            Input input() {
+                return input;
+            }
+
+            @Provides
+            Output output() {
+                return output;
+            }
+        }));
+    }
+
+    /**
+     * Starts a party.
+     * @param file - the configuration of the party.
+     * @param input - the attendance events of the party.
+     * @param output - gets the attendance of the party.
+     * @return - the party, to close once it is over, so that it releases its metrics.
+     */
+    public PartyApp open(File file, Input input, Output output) {
+        PartyApp party = create(input, output);
+        party.processFile(file);
+        return party;
+    }
+
+    private synchronized PartyApp create(Input input, Output output) {
+        this.input = input;
+        this.output = output;
+        try {
+            return injector.getInstance(PartyApp.class);
+        } finally {
+            this.input = null;
+            this.output = null;
+        }
+    }
+
+    /**
+     * @return - the amount of distinct configurations the parties use.
+     */
+    public long sharedConfigurations() {
+        return loader.size();
+    }
+}
@@ -0,0 +1,57 @@
+package cs.technion.ac.il.sd.app;
+
+import cs.technion.ac.il.sd.Attendance;
+
+import java.util.Map;
+
+/**
+ * Records where the time of a party goes. Called on the hot path of every RSVP, so implementations must be cheap, and
+ * the default one, {@link NoPartyMetrics}, does nothing.
+ */
+public interface PartyMetrics extends AutoCloseable {
+
+    /**
+     * The stages of handling a batch of RSVPs, in the order they run.
+     */
+    enum Stage {
+        /** applying one RSVP */
+        UPDATE_ATTENDANCE,
+        /** finding everyone reachable from the changed invitees */
+        CONE,
+        /** sorting them in layers */
+        SORT_CONE,
+        /** recomputing them, including CONE and SORT_CONE */
+        COMPUTE_FROM,
+        /** publishing the result */
+        OUTPUT_RESULT
+    }
+
+    /**
+     * @return - a mark of when a stage starts, e.g. the time, to pass to {@link #record}.
+     */
+    long start();
+
+    /**
+     * @param start - what {@link #start()} returned when stage started.
+     */
+    void record(Stage stage, long start);
+
+    /**
+     * @param invitees - the amount of invitees of the loaded configuration.
+     * @param edges - the amount of dependencies between them.
+     */
+    void configurationLoaded(int invitees, int edges);
+
+    /**
+     * @param attendance - the attendance that was published: an immutable snapshot, or a view that later recomputations
+     *                   change if the publisher does not keep maps.
+     */
+    void published(Map<String, Attendance> attendance);
+
+    /**
+     * Releases whatever the metrics registered, once their party is closed.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,70 @@
+package cs.technion.ac.il.sd.app;
+
+import java.beans.ConstructorProperties;
+import java.util.Map;
+
+/**
+ * The metrics of one party, as {@link JmxPartyMetrics} exposes them.
+ */
+public interface PartyMetricsMXBean {
+
+    /**
+     * @return - the amount of invitees of the loaded configuration.
+     */
+    int getInvitees();
+
+    /**
+     * @return - the amount of dependencies between the invitees.
+     */
+    int getEdges();
+
+    /**
+     * @return - the amount of invitees of every attendance, as last published.
+     */
+    Map<String, Integer> getAttendance();
+
+    /**
+     * @return - the statistics of every stage of {@link PartyMetrics.Stage}, by name.
+     */
+    Map<String, StageStatistics> getStages();
+
+    /**
+     * How long a stage took, over all the times it ran. Quantiles are accurate up to a factor of two.
+     */
+    class StageStatistics {
+        private final long count;
+        private final double meanMicros;
+        private final double p50Micros;
+        private final double p99Micros;
+        private final double maxMicros;
+
+        @ConstructorProperties({"count", "meanMicros", "p50Micros", "p99Micros", "maxMicros"})
+        public StageStatistics(long count, double meanMicros, double p50Micros, double p99Micros, double maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMicros() {
+            return meanMicros;
+        }
+
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
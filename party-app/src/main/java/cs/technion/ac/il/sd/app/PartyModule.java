@@ -6,5 +6,11 @@ public class PartyModule extends AbstractModule {
   @Override
   protected void configure() {
     bind(PartyApp.class).to(SimplePartyApp.class);
+    bind(LayerEvaluator.class).to(SequentialLayerEvaluator.class);
+    bind(ConfigurationLoader.class).to(TextConfigurationLoader.class);
+    bind(RsvpIngestion.class).to(PerEventIngestion.class);
+    bind(AttendancePublisher.class).to(FullOutputPublisher.class);
+    bind(EventScheduler.class).to(VirtualThreadScheduler.class);
+    bind(PartyMetrics.class).to(NoPartyMetrics.class);
   }
 }
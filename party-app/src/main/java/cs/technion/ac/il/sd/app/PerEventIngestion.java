@@ -0,0 +1,37 @@
+package cs.technion.ac.il.sd.app;
+
+import cs.technion.ac.il.sd.Input;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Answers every event on its own, as soon as it arrives.
+ * Events are delivered on the thread that publishes them, so a single batch of a single event is refilled and reused
+ * for every event, and an RSVP allocates nothing. An event that arrives while the batch is still being delivered, from
+ * another thread or from within the delivery, gets a batch of its own.
+ */
+public class PerEventIngestion implements RsvpIngestion {
+    @Override
+    public void listen(Input input, Consumer<List<AttendanceEvent>> batches) {
+        AttendanceEvent event = new AttendanceEvent(null, Optional.empty());
+        List<AttendanceEvent> batch = Collections.singletonList(event);
+        AtomicBoolean delivering = new AtomicBoolean();
+        input.listen((name, attendance) -> {
+            if (!delivering.compareAndSet(false, true)) {
+                batches.accept(Collections.singletonList(new AttendanceEvent(name, attendance)));
+                return;
+            }
+            try {
+                event.set(name, attendance);
+                batches.accept(batch);
+            } finally {
+                event.set(null, Optional.empty());
+                delivering.set(false);
+            }
+        });
+    }
+}
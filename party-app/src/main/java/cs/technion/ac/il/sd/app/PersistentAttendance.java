@@ -0,0 +1,197 @@
+package cs.technion.ac.il.sd.app;
+
+import cs.technion.ac.il.sd.Attendance;
+
+import java.util.*;
+
+/**
+ * The attendance of the invitees of a configuration, as attendance ordinals in a 32-way trie of byte arrays indexed by
+ * invitee id. A snapshot only starts a new epoch: nodes of older epochs are never written again, so the first write
+ * to a node after a snapshot copies it and the path above it, while snapshots keep sharing everything that did not
+ * change. Snapshots are O(1) to take and can be read from any thread without locks.
+ * A new trie has a single node per level, which every slot of the level above points to, so a party only pays for the
+ * parts of its attendance that were written.
+ */
+final class PersistentAttendance {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Attendance[] VALUES = Attendance.values();
+
+    /**
+     * Inner nodes have children, leaves have the ordinals of WIDTH invitees.
+     */
+    private static final class Node {
+        final long epoch;
+        final Node[] children;
+        final byte[] ordinals;
+
+        Node(long epoch, Node[] children, byte[] ordinals) {
+            this.epoch = epoch;
+            this.children = children;
+            this.ordinals = ordinals;
+        }
+
+        Node copy(long epoch) {
+            return new Node(epoch, children == null ? null : children.clone(), ordinals == null ? null : ordinals.clone());
+        }
+    }
+
+    private final ConfigurationSnapshot configuration;
+    /** the shift of the index bits of the root's children; leaves are at shift 0 */
+    private final int shift;
+    private Node root;
+    private long epoch = 0;
+    private final Map<String, Attendance> view = new Snapshot(null);
+
+    PersistentAttendance(ConfigurationSnapshot configuration, Attendance initial) {
+        this.configuration = configuration;
+        int shift = 0;
+        while ((long) WIDTH << shift < configuration.inviteeCount) {
+            shift += BITS;
+        }
+        this.shift = shift;
+        this.root = fill(shift, (byte) initial.ordinal());
+    }
+
+    /**
+     * @return - a trie of the given level whose every leaf is initial. Its nodes are shared by many slots, so they are
+     * of no epoch and the first write to any of them copies it.
+     */
+    private static Node fill(int level, byte initial) {
+        byte[] ordinals = new byte[WIDTH];
+        Arrays.fill(ordinals, initial);
+        Node node = new Node(-1, null, ordinals);
+        for (int l = BITS; l <= level; l += BITS) {
+            Node[] children = new Node[WIDTH];
+            Arrays.fill(children, node);
+            node = new Node(-1, children, null);
+        }
+        return node;
+    }
+
+    private static Attendance get(Node root, int shift, int id) {
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = node.children[(id >>> level) & MASK];
+        }
+        return VALUES[node.ordinals[id & MASK]];
+    }
+
+    /**
+     * @return - the attendance of the invitee with the given id.
+     */
+    Attendance get(int id) {
+        return get(root, shift, id);
+    }
+
+    Attendance get(String name) {
+        return get(configuration.idOf(name));
+    }
+
+    /**
+     * Writes are serialized, so a layer can be evaluated in parallel. Reads of invitees that are not being written
+     * need no lock, as a copied node has the same content as the one it replaces.
+     */
+    synchronized void put(int id, Attendance attendance) {
+        if (get(root, shift, id) == attendance) {
+            return;
+        }
+        root = owned(root);
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            int slot = (id >>> level) & MASK;
+            Node child = owned(node.children[slot]);
+            node.children[slot] = child;
+            node = child;
+        }
+        node.ordinals[id & MASK] = (byte) attendance.ordinal();
+    }
+
+    void put(String name, Attendance attendance) {
+        put(configuration.idOf(name), attendance);
+    }
+
+    private Node owned(Node node) {
+        return node.epoch == epoch ? node : node.copy(epoch);
+    }
+
+    /**
+     * @return - the current attendance of everyone, which later writes do not change.
+     */
+    synchronized Map<String, Attendance> snapshot() {
+        epoch++;
+        return new Snapshot(root);
+    }
+
+    /**
+     * @return - the current attendance of everyone, which later writes do change. Always the same map, so reading the
+     * attendance without a snapshot allocates nothing, and writes do not copy any node.
+     */
+    Map<String, Attendance> view() {
+        return view;
+    }
+
+    private final class Snapshot extends AbstractMap<String, Attendance> {
+        /** null in the live view */
+        private final Node root;
+
+        Snapshot(Node root) {
+            this.root = root;
+        }
+
+        private Node root() {
+            return root == null ? PersistentAttendance.this.root : root;
+        }
+
+        @Override
+        public Attendance get(Object key) {
+            int id = configuration.idOf(key);
+            return id < 0 || id >= size() ? null : PersistentAttendance.get(root(), shift, id);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            int id = configuration.idOf(key);
+            return id >= 0 && id < size();
+        }
+
+        @Override
+        public int size() {
+            return configuration.inviteeCount;
+        }
+
+        @Override
+        public Set<Entry<String, Attendance>> entrySet() {
+            return new AbstractSet<Entry<String, Attendance>>() {
+                @Override
+                public Iterator<Entry<String, Attendance>> iterator() {
+                    Node root = root();
+                    return new Iterator<Entry<String, Attendance>>() {
+                        private int id = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return id < size();
+                        }
+
+                        @Override
+                        public Entry<String, Attendance> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            String name = configuration.names[id];
+                            return new SimpleImmutableEntry<>(name, PersistentAttendance.get(root, shift, id++));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return configuration.inviteeCount;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package cs.technion.ac.il.sd.app;
+
+/**
+ * Runs every loop on a daemon platform thread.
+ */
+public class PlatformThreadScheduler implements EventScheduler {
+    @Override
+    public Thread start(String name, Runnable loop) {
+        Thread thread = new Thread(loop, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,25 @@
+package cs.technion.ac.il.sd.app;
+
+import cs.technion.ac.il.sd.Input;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Decides how the attendance events of an input are grouped before the attendance is recomputed.
+ */
+public interface RsvpIngestion extends AutoCloseable {
+    /**
+     * @param batches - gets the events of input in batches, in order. Every batch is answered by one recomputation
+     *                and one output. A batch and its events may be reused once batches returns, so they must not
+     *                be kept.
+     */
+    void listen(Input input, Consumer<List<AttendanceEvent>> batches);
+
+    /**
+     * Stops delivering batches, and releases whatever the ingestion started. Events that were not delivered yet are
+     * dropped.
+     */
+    @Override
+    default void close() {}
+}
@@ -0,0 +1,16 @@
+package cs.technion.ac.il.sd.app;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Evaluates every layer on the calling thread, without allocating.
+ */
+public class SequentialLayerEvaluator implements LayerEvaluator {
+    @Override
+    public void evaluate(int[] order, int[] layerEnds, int layers, IntConsumer evaluation) {
+        int end = layers == 0 ? 0 : layerEnds[layers - 1];
+        for (int i = 0; i < end; i++) {
+            evaluation.accept(order[i]);
+        }
+    }
+}
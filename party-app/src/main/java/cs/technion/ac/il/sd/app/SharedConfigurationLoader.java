@@ -0,0 +1,63 @@
+package cs.technion.ac.il.sd.app;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads each distinct configuration once: files are told apart by the SHA-256 of their content, and every file with
+ * the same content gets the same snapshot. A snapshot is dropped once no party uses it any more.
+ */
+public class SharedConfigurationLoader implements ConfigurationLoader {
+
+    private final ConfigurationLoader loader;
+    private final Cache<String, ConfigurationSnapshot> snapshots = CacheBuilder.newBuilder().weakValues().build();
+
+    /**
+     * @param loader - loads the configurations that are not loaded yet.
+     */
+    public SharedConfigurationLoader(ConfigurationLoader loader) {
+        this.loader = loader;
+    }
+
+    @Override
+    public ConfigurationSnapshot load(File file) {
+        try {
+            return snapshots.get(contentHash(file), () -> loader.load(file));
+        } catch (ExecutionException e) {
+            throw new AssertionError();
+        }
+    }
+
+    /**
+     * @return - the amount of distinct configurations in use.
+     */
+    public long size() {
+        snapshots.cleanUp();
+        return snapshots.size();
+    }
+
+    private static String contentHash(File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[1 << 16];
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                digest.update(buffer, 0, read);
+            }
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new AssertionError();
+        }
+    }
+}
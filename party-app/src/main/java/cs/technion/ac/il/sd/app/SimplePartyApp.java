@@ -1,126 +1,397 @@
 package cs.technion.ac.il.sd.app;
 
-import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import cs.technion.ac.il.sd.Attendance;
 import cs.technion.ac.il.sd.Input;
-import cs.technion.ac.il.sd.Output;
-import cs.technion.ac.il.sd.library.Graph;
+import cs.technion.ac.il.sd.library.StronglyConnectedComponents;
 
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.IntConsumer;
 
 /**
  * PartyApp implementation
+ *
+ * The dependency graph is the rows of the configuration snapshot, with an edge from every dependency to whoever depends
+ * on it, and is never changed, so parties of the same configuration can share it. A declared invitee does not depend
+ * on anyone, so the graph of this party is that graph without the incoming edges of its declared invitees: the
+ * traversals below skip those edges instead of removing them.
  */
 public class SimplePartyApp implements PartyApp{
 
     private final Input input;
-    private final Output output;
-    private final Graph<String, String> graph;
-    private Map<String, Attendance> attendance;
-    private Configuration configuration;
+    private final AttendancePublisher publisher;
+    private final LayerEvaluator evaluator;
+    private final ConfigurationLoader loader;
+    private final RsvpIngestion ingestion;
+    private final PartyMetrics metrics;
+    private final IntConsumer evaluation;
+    private ConfigurationSnapshot snapshot;
+    private PersistentAttendance attendance;
+    /** ids of the invitees reachable from someone who is not attending */
+    private final BitSet declined;
+    /** ids of the invitees of the cone being recomputed, empty between batches */
+    private final BitSet inCone;
+    /** ids of everyone the current batch may have changed, empty between batches */
+    private final BitSet touched;
+    /** the ids in touched, in the order they were touched, and the attendance of each before the current batch */
+    private int[] touchedIds;
+    private Attendance[] before;
+    private int touchedCount;
+    /** the invitees the last batch changed, refilled by every batch */
+    private ChangedAttendance changed;
+    private boolean closed;
+
+    /*
+     * The work arrays of a recomputation are reused by every batch and only grow when a cone is larger than any before,
+     * so that once they are large enough an RSVP allocates nothing, unless the publisher keeps the maps it is given.
+     */
+    private int[] cone;
+    private int[] order;
+    private int[] layerEnds;
+    private int[] declinedQueue;
+    /** the strongly connected components of the cone, and the layer of each, or -1 for one that is left out */
+    private final StronglyConnectedComponents components = new StronglyConnectedComponents();
+    private final StronglyConnectedComponents.Edges coneEdges = new ConeEdges();
+    private int[] layer;
+    /** by layer, where the next invitee of the layer goes in order */
+    private int[] next;
 
     @Inject
-    public SimplePartyApp(Input input, Output output) {
+    public SimplePartyApp(Input input, AttendancePublisher publisher, LayerEvaluator evaluator,
+                          ConfigurationLoader loader, RsvpIngestion ingestion, PartyMetrics metrics) {
         this.input = input;
-        this.output = output;
-        this.graph = new Graph<>();
-        this.attendance = new HashMap<>();
+        this.publisher = publisher;
+        this.evaluator = evaluator;
+        this.loader = loader;
+        this.ingestion = ingestion;
+        this.metrics = metrics;
+        this.evaluation = id -> attendance.put(id, computeByDependencies(id));
+        this.declined = new BitSet();
+        this.inCone = new BitSet();
+        this.touched = new BitSet();
+        this.touchedIds = new int[16];
+        this.before = new Attendance[16];
+        this.cone = new int[16];
+        this.order = new int[16];
+        this.layerEnds = new int[16];
+        this.declinedQueue = new int[16];
+        this.layer = new int[16];
+        this.next = new int[16];
     }
 
     @Override
     public void processFile(File file) {
         loadConfiguration(file)
-                .buildGraph()
                 .initAttendance()
                 .beginListening();
     }
 
+    /**
+     * Closes the ingestion and then unregisters the metrics of the party. The lock of the party is not held while the
+     * ingestion closes, as its thread may be waiting for it to deliver a batch.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        ingestion.close();
+        metrics.close();
+    }
+
     private SimplePartyApp beginListening() {
-        input.listen(this::onAttendanceEvent);
+        ingestion.listen(input, this::onAttendanceEvents);
         return this;
     }
 
     private SimplePartyApp loadConfiguration(File file) {
-        configuration = Configuration.fromFile(file);
+        snapshot = loader.load(file);
+        metrics.configurationLoaded(snapshot.inviteeCount, snapshot.edgeCount());
         return this;
     }
 
     private SimplePartyApp initAttendance() {
-        attendance = configuration.getInvitees()
-                .stream()
-                .collect(Collectors.toMap(s->s, s->Attendance.UNKNOWN));
+        attendance = new PersistentAttendance(snapshot, Attendance.UNKNOWN);
+        changed = new ChangedAttendance(snapshot, attendance);
         return this;
     }
 
-    private SimplePartyApp buildGraph() {
-        Set<String> invitees = configuration.getInvitees();
-        invitees.forEach(i -> graph.addVertex(i,i));
-        invitees.forEach(this::addDependenciesToGraph);
-        return this;
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
     }
 
-    private void addDependenciesToGraph(String invitee) {
-        graph.addEdgesTo(invitee, configuration.getDependenciesOf(invitee));
+    /**
+     * Remembers the attendance of id before the current batch, the first time the batch may change it.
+     */
+    private void touch(int id) {
+        if (touched.get(id))
+            return;
+        touched.set(id);
+        if (touchedCount == touchedIds.length) {
+            touchedIds = Arrays.copyOf(touchedIds, touchedCount * 2);
+            before = Arrays.copyOf(before, touchedCount * 2);
+        }
+        touchedIds[touchedCount] = id;
+        before[touchedCount++] = attendance.get(id);
     }
 
+    /**
+     * An RSVP of someone who is not an invitee changes nothing, and no one who is not an invitee is ever output.
+     */
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
-    private SimplePartyApp updateAttendance(String invitee, Optional<Boolean> newAttendance) {
-        if (newAttendance.isPresent()) {
-            graph.removeIncomingEdgesOf(invitee);
-        } else if (alreadyDeclaredAttendance(invitee)) {
-            graph.addEdgesTo(invitee, configuration.getDependenciesOf(invitee));
-        }
-        this.attendance.put(invitee, toAttendance(newAttendance));
-        return this;
+    private void updateAttendance(String invitee, Optional<Boolean> newAttendance) {
+        long start = metrics.start();
+        int id = snapshot.idOf(invitee);
+        if (id < 0 || id >= snapshot.inviteeCount)
+            return;
+        touch(id);
+        attendance.put(id, toAttendance(newAttendance));
+        metrics.record(PartyMetrics.Stage.UPDATE_ATTENDANCE, start);
     }
 
-    private boolean alreadyDeclaredAttendance(String name) {
-        return attendance.get(name) == Attendance.ATTENDING || attendance.get(name) == Attendance.NOT_ATTENDING;
+    private boolean alreadyDeclaredAttendance(int id) {
+        return declared(attendance.get(id));
     }
 
-    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
-    private void onAttendanceEvent(String name, Optional<Boolean> attendance) {
-        updateAttendance(name, attendance)
-                .computeAll()
+    /**
+     * Applies a batch of events in order, then recomputes and outputs once for all of them.
+     */
+    private synchronized void onAttendanceEvents(List<AttendanceEvent> events) {
+        if (closed)
+            return;
+        for (int i = 0; i < events.size(); i++) {
+            updateAttendance(events.get(i).getName(), events.get(i).getAttendance());
+        }
+        computeFrom(touchedCount)
                 .outputResult();
     }
 
     private SimplePartyApp outputResult() {
-        output.attendance(Maps.newHashMap(attendance));
+        long start = metrics.start();
+        changed.reset();
+        for (int i = 0; i < touchedCount; i++) {
+            if (attendance.get(touchedIds[i]) != before[i])
+                changed.add(touchedIds[i]);
+            touched.clear(touchedIds[i]);
+        }
+        touchedCount = 0;
+        if (publisher.keepsMaps()) {
+            Map<String, Attendance> published = attendance.snapshot();
+            publisher.publish(published, new HashMap<>(changed));
+            metrics.published(published);
+        } else {
+            publisher.publish(attendance.view(), changed);
+            metrics.published(attendance.view());
+        }
+        metrics.record(PartyMetrics.Stage.OUTPUT_RESULT, start);
         return this;
     }
 
-    private SimplePartyApp computeAll() {
-        attendance.replaceAll(this::defaultAttendance);
-        graph.toposort(this::calculateAttendance);
+    /**
+     * Recomputes only the invitees that may be affected by a change of the given invitees, i.e. the invitees and
+     * everyone reachable from them. Declared invitees have no incoming edges, so a path from someone who is not
+     * attending never passes through another declared invitee: everyone undeclared on it is probably not attending, and
+     * everyone on or behind a cycle that is not on such a path is unknown.
+     * @param seeds - the changed invitees are the first seeds of touchedIds.
+     */
+    private SimplePartyApp computeFrom(int seeds) {
+        long start = metrics.start();
+        int size = cone(seeds);
+        for (int i = 0; i < size; i++) {
+            int id = cone[i];
+            touch(id);
+            if (!alreadyDeclaredAttendance(id))
+                attendance.put(id, Attendance.UNKNOWN);
+            declined.clear(id);
+        }
+        markDeclined(size);
+
+        long sortStart = metrics.start();
+        int layers = sortCone(size);
+        metrics.record(PartyMetrics.Stage.SORT_CONE, sortStart);
+        evaluator.evaluate(order, layerEnds, layers, evaluation);
+        for (int i = 0; i < size; i++) {
+            int id = cone[i];
+            if (declined.get(id) && !alreadyDeclaredAttendance(id))
+                attendance.put(id, Attendance.PROBABLY_NOT_ATTENDING);
+            inCone.clear(id);
+        }
+        metrics.record(PartyMetrics.Stage.COMPUTE_FROM, start);
         return this;
     }
 
-    private void calculateAttendance(String invitee) {
-        attendance.compute(invitee, this::computeByDependencies);
-        if (attendance.get(invitee) == Attendance.NOT_ATTENDING) {
-            graph.getAllReachableFrom(invitee).stream()
-                    .filter(x -> !alreadyDeclaredAttendance(x))
-                    .forEach(x -> attendance.put(x, Attendance.PROBABLY_NOT_ATTENDING));
+    /**
+     * Fills cone with the first seeds of touchedIds and everyone reachable from them, which are also marked in inCone.
+     * @return - the size of the cone.
+     */
+    private int cone(int seeds) {
+        long start = metrics.start();
+        int size = 0;
+        for (int i = 0; i < seeds; i++) {
+            int id = touchedIds[i];
+            if (!inCone.get(id)) {
+                inCone.set(id);
+                cone = ensureCapacity(cone, size + 1);
+                cone[size++] = id;
+            }
         }
+        for (int head = 0; head < size; head++) {
+            int id = cone[head];
+            for (int i = snapshot.succOffsets[id]; i < snapshot.succOffsets[id + 1]; i++) {
+                int s = snapshot.succIds[i];
+                if (!inCone.get(s) && !alreadyDeclaredAttendance(s)) {
+                    inCone.set(s);
+                    cone = ensureCapacity(cone, size + 1);
+                    cone[size++] = s;
+                }
+            }
+        }
+        metrics.record(PartyMetrics.Stage.CONE, start);
+        return size;
     }
 
-    private Attendance computeByDependencies(String invitee, Attendance attendance) {
-        if (alreadyDeclaredAttendance(invitee))
-            return attendance;
+    /**
+     * Topologically sorts the cone of the changed invitees into order, in layers: everyone in a layer depends only on
+     * invitees outside the cone or in earlier layers. Everyone outside of the cone already has its final attendance.
+     * The cone is condensed into its strongly connected components, which are sorted as units in topological order of
+     * the condensation: the invitees of a component with a cycle, and everyone behind them, can't be attending, so they
+     * are left out of order, unknown, unless they are marked as declined.
+     * @return - the amount of layers, whose ends are in layerEnds.
+     */
+    private int sortCone(int size) {
+        int count = components.run(cone, size, coneEdges);
+        order = ensureCapacity(order, size);
+        layerEnds = ensureCapacity(layerEnds, count);
+        layer = ensureCapacity(layer, count);
+        next = ensureCapacity(next, count);
+        int layers = 0;
+        for (int c = 0; c < count; c++) {
+            if (components.isCyclic(c)) {
+                layer[c] = -1;
+                continue;
+            }
+            layer[c] = 0;
+            int id = components.member(components.start(c));
+            for (int i = snapshot.depOffsets[id]; !alreadyDeclaredAttendance(id) && i < snapshot.depOffsets[id + 1]; i++) {
+                int p = snapshot.depIds[i];
+                if (p < snapshot.inviteeCount && inCone.get(p)) {
+                    int before = layer[components.componentOf(p)];
+                    if (before < 0) {
+                        layer[c] = -1;
+                        break;
+                    }
+                    layer[c] = Math.max(layer[c], before + 1);
+                }
+            }
+            layers = Math.max(layers, layer[c] + 1);
+        }
 
-        Set<String> dependencies = configuration.getDependenciesOf(invitee);
-        if (!dependencies.isEmpty() && dependencies.stream().allMatch(this::attendingOrProbablyAttending))
+        Arrays.fill(layerEnds, 0, layers, 0);
+        for (int c = 0; c < count; c++) {
+            if (layer[c] >= 0)
+                layerEnds[layer[c]]++;
+        }
+        for (int l = 0, end = 0; l < layers; l++) {
+            next[l] = end;
+            end += layerEnds[l];
+            layerEnds[l] = end;
+        }
+        for (int c = 0; c < count; c++) {
+            if (layer[c] >= 0)
+                order[next[layer[c]]++] = components.member(components.start(c));
+        }
+        return layers;
+    }
+
+    /**
+     * The edges of the cone that are in this party's graph: from an invitee to whoever depends on it, unless that one
+     * declared its attendance.
+     */
+    private class ConeEdges implements StronglyConnectedComponents.Edges {
+        @Override
+        public int[] row(int id) {
+            return snapshot.succIds;
+        }
+
+        @Override
+        public int start(int id) {
+            return snapshot.succOffsets[id];
+        }
+
+        @Override
+        public int end(int id) {
+            return snapshot.succOffsets[id + 1];
+        }
+
+        @Override
+        public boolean follows(int id) {
+            return inCone.get(id) && !alreadyDeclaredAttendance(id);
+        }
+    }
+
+    /**
+     * Marks the invitees of the cone that are reachable from someone who is not attending.
+     */
+    private void markDeclined(int size) {
+        declinedQueue = ensureCapacity(declinedQueue, size);
+        int[] queue = declinedQueue;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int id = cone[i];
+            if (attendance.get(id) == Attendance.NOT_ATTENDING || declinedPredecessorOutsideCone(id)) {
+                declined.set(id);
+                queue[count++] = id;
+            }
+        }
+        for (int head = 0; head < count; head++) {
+            int id = queue[head];
+            for (int i = snapshot.succOffsets[id]; i < snapshot.succOffsets[id + 1]; i++) {
+                int s = snapshot.succIds[i];
+                if (!declined.get(s) && !alreadyDeclaredAttendance(s)) {
+                    declined.set(s);
+                    queue[count++] = s;
+                }
+            }
+        }
+    }
+
+    private boolean declinedPredecessorOutsideCone(int id) {
+        if (alreadyDeclaredAttendance(id))
+            return false;
+        for (int i = snapshot.depOffsets[id]; i < snapshot.depOffsets[id + 1]; i++) {
+            int p = snapshot.depIds[i];
+            if (p < snapshot.inviteeCount && !inCone.get(p) && declined.get(p))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param invitee - the id of an invitee that is not on or behind a cycle, whose dependencies are all computed.
+     */
+    private Attendance computeByDependencies(int invitee) {
+        Attendance current = attendance.get(invitee);
+        if (declared(current))
+            return current;
+
+        int start = snapshot.depOffsets[invitee];
+        int end = snapshot.depOffsets[invitee + 1];
+        boolean allAttending = start < end;
+        boolean anyNotAttending = false;
+        for (int i = start; i < end; i++) {
+            int dependency = snapshot.depIds[i];
+            Attendance a = dependency < snapshot.inviteeCount ? attendance.get(dependency) : null;
+            allAttending &= attendingOrProbablyAttending(a);
+            anyNotAttending |= notAttendingOrProbablyNotAttending(a);
+        }
+        if (allAttending)
             return Attendance.PROBABLY_ATTENDING;
 
-        else if (dependencies.stream().anyMatch(this::notAttendingOrProbablyNotAttending))
+        else if (anyNotAttending)
             return Attendance.PROBABLY_NOT_ATTENDING;
 
         else
@@ -128,16 +399,16 @@ public class SimplePartyApp implements PartyApp{
 
     }
 
-    private boolean notAttendingOrProbablyNotAttending(String s) {
-        return attendance.get(s) == Attendance.NOT_ATTENDING || attendance.get(s) == Attendance.PROBABLY_NOT_ATTENDING;
+    private static boolean notAttendingOrProbablyNotAttending(Attendance a) {
+        return a == Attendance.NOT_ATTENDING || a == Attendance.PROBABLY_NOT_ATTENDING;
     }
 
-    private boolean attendingOrProbablyAttending(String s) {
-        return attendance.get(s) == Attendance.ATTENDING || attendance.get(s) == Attendance.PROBABLY_ATTENDING;
+    private static boolean attendingOrProbablyAttending(Attendance a) {
+        return a == Attendance.ATTENDING || a == Attendance.PROBABLY_ATTENDING;
     }
 
-    private Attendance defaultAttendance(String invitee, Attendance attendance) {
-        return alreadyDeclaredAttendance(invitee) ? attendance : Attendance.UNKNOWN;
+    private static boolean declared(Attendance a) {
+        return a == Attendance.ATTENDING || a == Attendance.NOT_ATTENDING;
     }
 
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
@@ -0,0 +1,17 @@
+package cs.technion.ac.il.sd.app;
+
+import java.io.File;
+
+/**
+ * Keeps a binary snapshot next to the configuration file, named after it with a ".snapshot" suffix, and reads it
+ * instead of the text as long as the text does not change.
+ */
+public class SnapshotConfigurationLoader implements ConfigurationLoader {
+
+    public static final String SUFFIX = ".snapshot";
+
+    @Override
+    public ConfigurationSnapshot load(File file) {
+        return ConfigurationSnapshot.load(file, new File(file.getPath() + SUFFIX));
+    }
+}
@@ -0,0 +1,28 @@
+package cs.technion.ac.il.sd.app;
+
+import com.google.inject.Inject;
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Output;
+
+import java.util.Map;
+
+/**
+ * Sends the whole attendance to {@link Output} every time, as an immutable snapshot that is never copied, so that
+ * publishing takes O(1) however many invitees there are. The snapshot can be kept and read from any thread, but
+ * changing it throws {@link UnsupportedOperationException}, so this is only for outputs that never change the map they
+ * get; {@link FullOutputPublisher} gives every output a copy of its own.
+ */
+public class SnapshotOutputPublisher implements AttendancePublisher {
+
+    private final Output output;
+
+    @Inject
+    public SnapshotOutputPublisher(Output output) {
+        this.output = output;
+    }
+
+    @Override
+    public void publish(Map<String, Attendance> attendance, Map<String, Attendance> changed) {
+        output.attendance(attendance);
+    }
+}
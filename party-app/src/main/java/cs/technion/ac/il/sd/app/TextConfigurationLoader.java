@@ -0,0 +1,13 @@
+package cs.technion.ac.il.sd.app;
+
+import java.io.File;
+
+/**
+ * Parses the text of the configuration every time.
+ */
+public class TextConfigurationLoader implements ConfigurationLoader {
+    @Override
+    public ConfigurationSnapshot load(File file) {
+        return ConfigurationSnapshot.of(Configuration.fromFile(file));
+    }
+}
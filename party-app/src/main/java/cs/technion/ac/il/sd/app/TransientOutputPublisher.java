@@ -0,0 +1,31 @@
+package cs.technion.ac.il.sd.app;
+
+import com.google.inject.Inject;
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Output;
+
+import java.util.Map;
+
+/**
+ * Sends the whole attendance to {@link Output} every time, as a view that is only valid until the output returns, so
+ * that an RSVP allocates nothing. For outputs that read the attendance right away and never keep the map.
+ */
+public class TransientOutputPublisher implements AttendancePublisher {
+
+    private final Output output;
+
+    @Inject
+    public TransientOutputPublisher(Output output) {
+        this.output = output;
+    }
+
+    @Override
+    public void publish(Map<String, Attendance> attendance, Map<String, Attendance> changed) {
+        output.attendance(attendance);
+    }
+
+    @Override
+    public boolean keepsMaps() {
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+package cs.technion.ac.il.sd.app;
+
+import java.lang.reflect.Method;
+
+/**
+ * Runs every loop on a virtual thread, so an idle party costs a parked continuation instead of a platform thread's
+ * stack, while busy parties share the carrier threads. Virtual threads are looked up by reflection, as they only
+ * exist on Java 21 and later; without them loops run on daemon platform threads.
+ */
+public class VirtualThreadScheduler implements EventScheduler {
+
+    private static final Method OF_VIRTUAL = lookup("java.lang.Thread", "ofVirtual");
+    private static final Method NAME = lookup("java.lang.Thread$Builder", "name", String.class);
+    private static final Method START = lookup("java.lang.Thread$Builder", "start", Runnable.class);
+
+    private final EventScheduler fallback = new PlatformThreadScheduler();
+
+    private static Method lookup(String className, String name, Class<?>... parameters) {
+        try {
+            return Class.forName(className).getMethod(name, parameters);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return - whether loops run on virtual threads in this JVM.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null && NAME != null && START != null;
+    }
+
+    @Override
+    public Thread start(String name, Runnable loop) {
+        if (!isSupported()) {
+            return fallback.start(name, loop);
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+            return (Thread) START.invoke(builder, loop);
+        } catch (ReflectiveOperationException e) {
+            return fallback.start(name, loop);
+        }
+    }
+}
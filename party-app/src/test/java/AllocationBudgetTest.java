@@ -0,0 +1,147 @@
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.util.Modules;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.AllocationPartyMetrics;
+import cs.technion.ac.il.sd.app.AttendancePublisher;
+import cs.technion.ac.il.sd.app.Configuration;
+import cs.technion.ac.il.sd.app.NoPartyMetrics;
+import cs.technion.ac.il.sd.app.PartyApp;
+import cs.technion.ac.il.sd.app.PartyMetrics;
+import cs.technion.ac.il.sd.app.PartyMetrics.Stage;
+import cs.technion.ac.il.sd.app.PartyModule;
+import cs.technion.ac.il.sd.app.SnapshotOutputPublisher;
+import cs.technion.ac.il.sd.app.TransientOutputPublisher;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Allocation budgets of every stage of an RSVP, measured by {@link AllocationPartyMetrics}. A stage that goes over its
+ * budget allocates more per event than it used to, and the budget should only be raised on purpose.
+ */
+public class AllocationBudgetTest {
+    /**
+     * Publishes without allocating.
+     */
+    class TestInput implements Input {
+        private final List<BiConsumer<String, Optional<Boolean>>> listener = new ArrayList<>();
+
+        @Override
+        public void listen(BiConsumer<String, Optional<Boolean>> listener) {
+            this.listener.add(listener);
+        }
+
+        public void publish(String name, Optional<Boolean> attending) {
+            for (int i = 0; i < listener.size(); i++)
+                listener.get(i).accept(name, attending);
+        }
+    }
+
+    private static final int EVENTS = 2000;
+    private static final List<Optional<Boolean>> ANSWERS =
+            Arrays.asList(Optional.of(true), Optional.of(false), Optional.empty());
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    private final TestInput input = new TestInput();
+    private AllocationPartyMetrics metrics;
+
+    @Before
+    public void supported() {
+        Assume.assumeTrue(AllocationPartyMetrics.isSupported());
+        metrics = new AllocationPartyMetrics();
+    }
+
+    private final File file = new File(getClass().getResource("large.txt").getFile());
+    private final List<String> invitees = new ArrayList<>(new TreeSet<>(Configuration.fromFile(file).getInvitees()));
+
+    /**
+     * @return - the invitees and answers of count random RSVPs.
+     */
+    private int[] randomEvents(Random random, int count) {
+        int[] events = new int[count];
+        for (int i = 0; i < count; i++)
+            events[i] = random.nextInt(invitees.size()) * ANSWERS.size() + random.nextInt(ANSWERS.size());
+        return events;
+    }
+
+    private void publish(int[] events) {
+        for (int e : events)
+            input.publish(invitees.get(e / ANSWERS.size()), ANSWERS.get(e % ANSWERS.size()));
+    }
+
+    private void processFile(Class<? extends AttendancePublisher> publisher, PartyMetrics metrics) {
+        Guice.createInjector(Modules.override(new PartyModule()).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Input.class).toInstance(input);
+                bind(Output.class).toInstance(attendance -> { });
+                bind(AttendancePublisher.class).to(publisher);
+                bind(PartyMetrics.class).toInstance(metrics);
+            }
+        })).getInstance(PartyApp.class).processFile(file);
+    }
+
+    /**
+     * Publishes random RSVPs to a party of large.txt, and measures only the second half of them.
+     */
+    private void measure() {
+        processFile(SnapshotOutputPublisher.class, metrics);
+        Random random = new Random(23);
+        publish(randomEvents(random, EVENTS));
+        metrics.reset();
+        publish(randomEvents(random, EVENTS));
+    }
+
+    private void assertWithin(Stage stage, int bytesPerEvent) {
+        Assert.assertTrue(stage + " went over its budget of " + bytesPerEvent + " (" + metrics + ")",
+                metrics.bytesPerEvent(stage) <= bytesPerEvent);
+    }
+
+    @Test
+    public void countsEveryEvent() {
+        measure();
+        Assert.assertEquals(metrics.toString(), EVENTS, metrics.events());
+    }
+
+    @Test
+    public void withinBudgets() {
+        measure();
+        assertWithin(Stage.UPDATE_ATTENDANCE, 400);
+        assertWithin(Stage.CONE, 8);
+        assertWithin(Stage.SORT_CONE, 8);
+        assertWithin(Stage.COMPUTE_FROM, 256);
+        assertWithin(Stage.OUTPUT_RESULT, 384);
+    }
+
+    @Test
+    public void steadyStateAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        processFile(TransientOutputPublisher.class, new NoPartyMetrics());
+        Random random = new Random(29);
+        publish(randomEvents(random, 10 * EVENTS));
+        int[] events = randomEvents(random, 10_000);
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long start = threads.getThreadAllocatedBytes(thread);
+            overhead = Math.min(overhead, threads.getThreadAllocatedBytes(thread) - start);
+        }
+
+        long start = threads.getThreadAllocatedBytes(thread);
+        publish(events);
+        long allocated = threads.getThreadAllocatedBytes(thread) - start - overhead;
+        Assert.assertEquals("bytes allocated by 10000 events", 0, allocated);
+    }
+}
@@ -0,0 +1,192 @@
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.util.Modules;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.AttendanceEvent;
+import cs.technion.ac.il.sd.app.BatchingIngestion;
+import cs.technion.ac.il.sd.app.PartyApp;
+import cs.technion.ac.il.sd.app.PartyModule;
+import cs.technion.ac.il.sd.app.RsvpIngestion;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link BatchingIngestion}
+ */
+public class BatchingIngestionTest {
+    class TestInput implements Input {
+        private final List<BiConsumer<String, Optional<Boolean>>> listener = new LinkedList<>();
+
+        @Override
+        public void listen(BiConsumer<String, Optional<Boolean>> listener) {
+            this.listener.add(listener);
+        }
+
+        public void publish(String name, Boolean attending) {
+            this.listener.forEach(c -> c.accept(name, Optional.ofNullable(attending)));
+        }
+    }
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    private final TestInput input = new TestInput();
+    private final List<List<String>> batches = new ArrayList<>();
+
+    private void listen(RsvpIngestion $) {
+        $.listen(input, batch -> {
+            List<String> names = new ArrayList<>();
+            for (AttendanceEvent event : batch)
+                names.add(event.getName());
+            synchronized (batches) {
+                batches.add(names);
+            }
+        });
+    }
+
+    private static long batchingThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.isAlive() && t.getName().equals("rsvp-batching"))
+                .count();
+    }
+
+    @Test
+    public void fullBatchIsDeliveredAtOnce() {
+        listen(new BatchingIngestion(3, 1, TimeUnit.HOURS));
+        input.publish("Jerry", true);
+        input.publish("George", false);
+        Assert.assertEquals(Collections.emptyList(), batches);
+        input.publish("Elaine", null);
+        input.publish("Kramer", true);
+        Assert.assertEquals(Collections.singletonList(Arrays.asList("Jerry", "George", "Elaine")), batches);
+    }
+
+    @Test
+    public void singleEventBatchesKeepPerEventSemantics() {
+        listen(new BatchingIngestion(1, 1, TimeUnit.HOURS));
+        input.publish("Jerry", true);
+        input.publish("George", false);
+        Assert.assertEquals(Arrays.asList(Collections.singletonList("Jerry"), Collections.singletonList("George")),
+                batches);
+    }
+
+    @Test
+    public void batchEndsAfterItsWindow() throws InterruptedException {
+        listen(new BatchingIngestion(1000, 50, TimeUnit.MILLISECONDS));
+        long start = System.nanoTime();
+        input.publish("Jerry", true);
+        input.publish("George", false);
+        while (true) {
+            synchronized (batches) {
+                if (!batches.isEmpty())
+                    break;
+            }
+            Thread.sleep(5);
+        }
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        synchronized (batches) {
+            Assert.assertEquals(Collections.singletonList(Arrays.asList("Jerry", "George")), batches);
+        }
+    }
+
+    @Test
+    public void flushDeliversThePendingBatch() {
+        BatchingIngestion $ = new BatchingIngestion(10, 1, TimeUnit.HOURS);
+        listen($);
+        input.publish("Jerry", true);
+        $.flush();
+        $.flush();
+        Assert.assertEquals(Collections.singletonList(Collections.singletonList("Jerry")), batches);
+    }
+
+    @Test
+    public void partyOutputsOncePerBatch() {
+        BatchingIngestion $ = new BatchingIngestion(4, 1, TimeUnit.HOURS);
+        Output output = Mockito.mock(Output.class);
+        PartyApp party = Guice.createInjector(Modules.override(new PartyModule()).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Input.class).toInstance(input);
+                bind(Output.class).toInstance(output);
+                bind(RsvpIngestion.class).toInstance($);
+            }
+        })).getInstance(PartyApp.class);
+        party.processFile(new File(getClass().getResource("small.txt").getFile()));
+        for (int i = 0; i < 9; i++)
+            input.publish(i % 2 == 0 ? "George" : "Elaine", i % 3 == 0);
+        verify(output, Mockito.times(2)).attendance(any());
+        $.flush();
+        verify(output, Mockito.times(3)).attendance(any());
+        party.close();
+    }
+
+    @Test
+    public void closingStopsTheThread() throws InterruptedException {
+        long before = batchingThreads();
+        BatchingIngestion $ = new BatchingIngestion(10, 1, TimeUnit.HOURS);
+        listen($);
+        input.publish("Jerry", true);
+        Assert.assertEquals(before + 1, batchingThreads());
+        $.close();
+        while (batchingThreads() > before)
+            Thread.sleep(10);
+    }
+
+    @Test
+    public void eventsAreDroppedOnceClosed() {
+        BatchingIngestion $ = new BatchingIngestion(2, 1, TimeUnit.HOURS);
+        listen($);
+        input.publish("Jerry", true);
+        $.close();
+        input.publish("George", true);
+        input.publish("Elaine", true);
+        $.flush();
+        Assert.assertEquals(Collections.emptyList(), batches);
+    }
+
+    @Test
+    public void closedWithItsParty() {
+        BatchingIngestion $ = Mockito.spy(new BatchingIngestion());
+        Output output = Mockito.mock(Output.class);
+        PartyApp party = Guice.createInjector(Modules.override(new PartyModule()).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Input.class).toInstance(input);
+                bind(Output.class).toInstance(output);
+                bind(RsvpIngestion.class).toInstance($);
+            }
+        })).getInstance(PartyApp.class);
+        party.processFile(new File(getClass().getResource("small.txt").getFile()));
+        party.close();
+        verify($).close();
+        input.publish("Jerry", true);
+        $.flush();
+        verify(output, Mockito.never()).attendance(any());
+    }
+
+    @Test
+    public void boundThroughTheModule() {
+        RsvpIngestion $ = Guice.createInjector(Modules.override(new PartyModule()).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Input.class).toInstance(input);
+                bind(Output.class).toInstance(Mockito.mock(Output.class));
+                bind(RsvpIngestion.class).to(BatchingIngestion.class);
+            }
+        })).getInstance(RsvpIngestion.class);
+        Assert.assertTrue($ instanceof BatchingIngestion);
+        $.close();
+    }
+}
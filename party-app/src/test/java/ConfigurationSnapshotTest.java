@@ -0,0 +1,122 @@
+import cs.technion.ac.il.sd.app.Configuration;
+import cs.technion.ac.il.sd.app.ConfigurationSnapshot;
+import cs.technion.ac.il.sd.app.SnapshotConfigurationLoader;
+import cs.technion.ac.il.sd.library.Graph;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Tests for {@link ConfigurationSnapshot}
+ */
+public class ConfigurationSnapshotTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File randomConfiguration(File file, Random random, int size, int maxDependencies) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file)) {
+            for (int i = 0; i < size; i++) {
+                StringBuilder line = new StringBuilder("v" + i);
+                int dependencies = random.nextInt(maxDependencies + 1);
+                for (int d = 0; d < dependencies; d++)
+                    line.append(", v").append(random.nextInt(2 * size));
+                writer.println(line);
+            }
+            writer.println("caf\u00e9, , v1");
+        }
+        return file;
+    }
+
+    private static void assertSameConfiguration(Configuration expected, Configuration $) {
+        Assert.assertEquals(expected.getInvitees(), $.getInvitees());
+        expected.getInvitees().forEach(i -> Assert.assertEquals(expected.getDependenciesOf(i), $.getDependenciesOf(i)));
+    }
+
+    private static void assertGraphOf(Configuration configuration, Graph<String, String> $) {
+        Assert.assertEquals(configuration.getInvitees().size(), $.size());
+        for (String i : configuration.getInvitees()) {
+            HashSet<String> deps = new HashSet<>(configuration.getDependenciesOf(i));
+            deps.remove("");
+            Assert.assertEquals(deps, new HashSet<>($.getPredecessors(i)));
+            for (String d : deps)
+                Assert.assertTrue($.getSuccessors(d).contains(i));
+        }
+    }
+
+    @Test
+    public void loadedLikeTheText() throws IOException {
+        File text = randomConfiguration(folder.newFile(), new Random(1), 300, 4);
+        File snapshotFile = new File(folder.getRoot(), "party.snapshot");
+        Configuration expected = Configuration.fromFile(text);
+
+        ConfigurationSnapshot written = ConfigurationSnapshot.load(text, snapshotFile);
+        Assert.assertTrue(snapshotFile.isFile());
+        assertSameConfiguration(expected, written.configuration());
+        assertGraphOf(expected, written.toGraph());
+
+        byte[] bytes = Files.readAllBytes(snapshotFile.toPath());
+        ConfigurationSnapshot read = ConfigurationSnapshot.load(text, snapshotFile);
+        Assert.assertArrayEquals(bytes, Files.readAllBytes(snapshotFile.toPath()));
+        assertSameConfiguration(expected, read.configuration());
+        assertGraphOf(expected, read.toGraph());
+    }
+
+    @Test
+    public void loaderKeepsTheSnapshotNextToTheText() throws IOException {
+        File text = randomConfiguration(folder.newFile(), new Random(5), 100, 3);
+        File snapshotFile = new File(text.getPath() + SnapshotConfigurationLoader.SUFFIX);
+        SnapshotConfigurationLoader $ = new SnapshotConfigurationLoader();
+        Configuration expected = Configuration.fromFile(text);
+
+        assertSameConfiguration(expected, $.load(text).configuration());
+        Assert.assertTrue(snapshotFile.isFile());
+        long written = snapshotFile.lastModified();
+        byte[] bytes = Files.readAllBytes(snapshotFile.toPath());
+        assertSameConfiguration(expected, $.load(text).configuration());
+        Assert.assertEquals(written, snapshotFile.lastModified());
+        Assert.assertArrayEquals(bytes, Files.readAllBytes(snapshotFile.toPath()));
+    }
+
+    @Test
+    public void staleSnapshotIsRebuilt() throws IOException {
+        File text = folder.newFile();
+        File snapshotFile = new File(folder.getRoot(), "party.snapshot");
+        ConfigurationSnapshot.load(randomConfiguration(text, new Random(2), 100, 3), snapshotFile);
+
+        randomConfiguration(text, new Random(3), 100, 3);
+        Configuration expected = Configuration.fromFile(text);
+        assertSameConfiguration(expected, ConfigurationSnapshot.load(text, snapshotFile).configuration());
+        assertSameConfiguration(expected, ConfigurationSnapshot.load(text, snapshotFile).configuration());
+    }
+
+    @Test
+    public void damagedSnapshotIsRebuilt() throws IOException {
+        File text = randomConfiguration(folder.newFile(), new Random(4), 100, 3);
+        File snapshotFile = new File(folder.getRoot(), "party.snapshot");
+        ConfigurationSnapshot.load(text, snapshotFile);
+        try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+            file.seek(file.length() / 2);
+            int b = file.read();
+            file.seek(file.length() / 2);
+            file.write(b ^ 0x40);
+        }
+        assertSameConfiguration(Configuration.fromFile(text), ConfigurationSnapshot.load(text, snapshotFile).configuration());
+
+        Files.write(snapshotFile.toPath(), new byte[]{1, 2, 3});
+        assertSameConfiguration(Configuration.fromFile(text), ConfigurationSnapshot.load(text, snapshotFile).configuration());
+    }
+}
@@ -6,12 +6,12 @@ import cs.technion.ac.il.sd.app.Configuration;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.rules.Timeout;
 
-import java.io.File;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Tests for {@link Configuration}
@@ -36,6 +36,64 @@ public class ConfigurationTest {
     @Rule
     public Timeout globalTimeout = Timeout.seconds(5);
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The invitees and dependencies as String.split reads them, which is how configurations were first parsed.
+     */
+    private static Map<String, Set<String>> splitLines(String content) {
+        Map<String, Set<String>> nameToDepNames = new HashMap<>();
+        new BufferedReader(new StringReader(content)).lines().map(String::trim).filter(l -> !l.isEmpty()).forEach(l -> {
+            String[] args = l.split(",");
+            Set<String> deps = new HashSet<>();
+            for (int i = 1; i < args.length; i++)
+                deps.add(args[i].trim());
+            deps.stream().filter(d -> !d.isEmpty()).forEach(d -> nameToDepNames.putIfAbsent(d, new HashSet<>()));
+            nameToDepNames.put(args[0].trim(), deps);
+        });
+        return nameToDepNames;
+    }
+
+    private String randomContent(Random random, int lines, int maxDependencies) {
+        String[] separators = {",", ", ", " ,", "\t,\t"};
+        String[] lineEnds = {"\n", "\r\n", "\r", "\n\n", " \n"};
+        StringBuilder content = new StringBuilder();
+        for (int l = 0; l < lines; l++) {
+            content.append(random.nextInt(4) == 0 ? "  " : "").append("n").append(random.nextInt(lines));
+            int dependencies = random.nextInt(maxDependencies + 1);
+            for (int d = 0; d < dependencies; d++) {
+                content.append(separators[random.nextInt(separators.length)]);
+                if (random.nextInt(10) != 0)
+                    content.append("n").append(random.nextInt(lines)).append(random.nextInt(5) == 0 ? " x" : "");
+            }
+            if (random.nextInt(5) == 0)
+                content.append(",,");
+            content.append(lineEnds[random.nextInt(lineEnds.length)]);
+        }
+        return content.toString();
+    }
+
+    private File write(String content) throws IOException {
+        File file = folder.newFile();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            writer.write(content);
+        }
+        return file;
+    }
+
+    private static void assertParsed(Map<String, Set<String>> expected, Configuration $) {
+        Assert.assertEquals(expected.keySet(), $.getInvitees());
+        expected.forEach((name, deps) -> Assert.assertEquals(deps, $.getDependenciesOf(name)));
+    }
+
+    private void assertParsedLikeSplit(String content) throws IOException {
+        File file = write(content);
+        assertParsed(splitLines(content), Configuration.fromFile(file));
+        assertParsed(splitLines(content), Configuration.fromMappedFile(file));
+        assertParsed(splitLines(content), Configuration.fromMappedFile(file, Math.max(64, content.length() / 256)));
+    }
+
     @Test
     public void smallContainsAllInvitees() {
         parseFile("small");
@@ -92,6 +150,86 @@ public class ConfigurationTest {
         Assert.assertEquals($.getInvitees(), Collections.EMPTY_SET);
     }
 
+    @Test
+    public void parsedLikeSplit() throws IOException {
+        Random random = new Random(1);
+        for (int i = 0; i < 50; i++)
+            assertParsedLikeSplit(randomContent(random, 40, 4));
+        assertParsedLikeSplit("a,b\r\n\r\n  ,c,  \nc, , d ,\n\t\nd");
+    }
+
+    @Test
+    public void largeParsedLikeSplit() throws IOException {
+        assertParsedLikeSplit(randomContent(new Random(2), 50000, 6));
+    }
 
-}
+    @Test
+    public void longLineParsedLikeSplit() throws IOException {
+        StringBuilder line = new StringBuilder("head");
+        for (int i = 0; i < 40000; i++)
+            line.append(", dep").append(i);
+        assertParsedLikeSplit("a, b\n" + line + "\nb, head");
+    }
+
+    @Test
+    public void mappedFileDecodesUtf8() throws IOException {
+        File file = write("\u05d9\u05d5\u05e1\u05d9, Zo\u00eb\nZo\u00eb, caf\u00e9 \ud83c\udf89\n");
+        Map<String, Set<String>> expected = new HashMap<>();
+        expected.put("\u05d9\u05d5\u05e1\u05d9", new HashSet<>(Collections.singletonList("Zo\u00eb")));
+        expected.put("Zo\u00eb", new HashSet<>(Collections.singletonList("caf\u00e9 \ud83c\udf89")));
+        expected.put("caf\u00e9 \ud83c\udf89", new HashSet<>());
+        assertParsed(expected, Configuration.fromMappedFile(file));
+        assertParsed(expected, Configuration.fromMappedFile(file, 8));
+    }
 
+    @Test
+    public void mappedFileInManyWindows() throws IOException {
+        String content = randomContent(new Random(3), 5000, 5);
+        File file = write(content);
+        for (int windowSize : new int[]{1, 100, 4096, 1 << 20})
+            assertParsed(splitLines(content), Configuration.fromMappedFile(file, windowSize));
+    }
+
+    @Test
+    public void parallelChunksParsedLikeSplit() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(4);
+            for (int i = 0; i < 20; i++) {
+                String content = randomContent(random, 40, 4);
+                File file = write(content);
+                for (int chunks : new int[]{1, 2, 3, 7, 50, 2000})
+                    assertParsed(splitLines(content), Configuration.fromFileInParallel(file, pool, chunks));
+            }
+            String content = randomContent(random, 20000, 5);
+            assertParsed(splitLines(content), Configuration.fromFileInParallel(write(content), pool, 16));
+            assertParsed(splitLines(content), Configuration.fromFileInParallel(write(content)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelParsingOfAMissingFileThrows() {
+        try {
+            Configuration.fromFileInParallel(new File(folder.getRoot(), "missing.txt"));
+            Assert.fail();
+        } catch (UncheckedIOException e) {
+            Assert.assertNotNull(e.getCause());
+        }
+    }
+
+    @Test
+    public void parallelParsingKeepsTheInterrupt() throws IOException {
+        File file = write("a, b\n");
+        Thread.currentThread().interrupt();
+        try {
+            Configuration.fromFileInParallel(file);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            Assert.assertTrue(Thread.interrupted());
+        }
+    }
+}
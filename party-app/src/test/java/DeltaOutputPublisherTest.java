@@ -0,0 +1,148 @@
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.util.Modules;
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.AttendanceDeltaOutput;
+import cs.technion.ac.il.sd.app.AttendancePublisher;
+import cs.technion.ac.il.sd.app.DeltaOutputPublisher;
+import cs.technion.ac.il.sd.app.PartyApp;
+import cs.technion.ac.il.sd.app.PartyModule;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link DeltaOutputPublisher}
+ */
+public class DeltaOutputPublisherTest {
+    class TestInput implements Input {
+        private final List<BiConsumer<String, Optional<Boolean>>> listener = new LinkedList<>();
+
+        @Override
+        public void listen(BiConsumer<String, Optional<Boolean>> listener) {
+            this.listener.add(listener);
+        }
+
+        public void publish(String name, Boolean attending) {
+            this.listener.forEach(c -> c.accept(name, Optional.ofNullable(attending)));
+        }
+    }
+
+    /**
+     * Rebuilds the full attendance from what a {@link DeltaOutputPublisher} sends.
+     */
+    private static class ReplayedDeltas implements AttendanceDeltaOutput {
+        private final Map<String, Attendance> attendance = new HashMap<>();
+
+        @Override
+        public void snapshot(Map<String, Attendance> attendance) {
+            this.attendance.clear();
+            this.attendance.putAll(attendance);
+        }
+
+        @Override
+        public void delta(Map<String, Attendance> changed) {
+            attendance.putAll(changed);
+        }
+    }
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    private final TestInput input = new TestInput();
+    private final AttendanceDeltaOutput output = Mockito.mock(AttendanceDeltaOutput.class);
+
+    private static Map<String, Attendance> attendance(String... nameAttendancePairs) {
+        Map<String, Attendance> attendance = new HashMap<>();
+        for (int i = 0; i < nameAttendancePairs.length; i += 2)
+            attendance.put(nameAttendancePairs[i], Attendance.valueOf(nameAttendancePairs[i + 1]));
+        return attendance;
+    }
+
+    private PartyApp party(AttendancePublisher publisher, TestInput input) {
+        PartyApp party = Guice.createInjector(Modules.override(new PartyModule()).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Input.class).toInstance(input);
+                bind(Output.class).toInstance(Mockito.mock(Output.class));
+                bind(AttendancePublisher.class).toInstance(publisher);
+            }
+        })).getInstance(PartyApp.class);
+        party.processFile(new File(getClass().getResource("small.txt").getFile()));
+        return party;
+    }
+
+    @Test
+    public void snapshotFirstAndThenEveryInterval() {
+        DeltaOutputPublisher $ = new DeltaOutputPublisher(output, 3);
+        Map<String, Attendance> changed = attendance("Jerry", "ATTENDING");
+        for (int i = 0; i < 7; i++)
+            $.publish(attendance("Jerry", "ATTENDING", "George", "UNKNOWN"), changed);
+        verify(output, Mockito.times(3)).snapshot(attendance("Jerry", "ATTENDING", "George", "UNKNOWN"));
+        verify(output, Mockito.times(4)).delta(changed);
+    }
+
+    @Test
+    public void unchangedRecomputationsSendNothing() {
+        DeltaOutputPublisher $ = new DeltaOutputPublisher(output, 10);
+        $.publish(attendance("Jerry", "UNKNOWN"), Collections.emptyMap());
+        $.publish(attendance("Jerry", "UNKNOWN"), Collections.emptyMap());
+        verify(output).snapshot(any());
+        verify(output, Mockito.never()).delta(any());
+    }
+
+    @Test
+    public void snapshotsAreCopies() {
+        Map<String, Attendance> attendance = attendance("Jerry", "UNKNOWN");
+        List<Map<String, Attendance>> snapshots = new ArrayList<>();
+        new DeltaOutputPublisher(new ReplayedDeltas() {
+            @Override
+            public void snapshot(Map<String, Attendance> attendance) {
+                snapshots.add(attendance);
+            }
+        }, 10).publish(attendance, Collections.emptyMap());
+        attendance.put("Jerry", Attendance.ATTENDING);
+        Assert.assertEquals(attendance("Jerry", "UNKNOWN"), snapshots.get(0));
+    }
+
+    @Test
+    public void partySendsOnlyWhatChanged() {
+        party(new DeltaOutputPublisher(output, 100), input);
+        input.publish("Jerry", null);
+        input.publish("Forever alone", true);
+        verify(output).snapshot(any());
+        verify(output).delta(attendance("Forever alone", "ATTENDING"));
+        input.publish("Forever alone", true);
+        verify(output, Mockito.times(1)).delta(any());
+    }
+
+    @Test
+    public void deltasRebuildWhatAFullOutputGets() {
+        ReplayedDeltas deltas = new ReplayedDeltas();
+        List<Map<String, Attendance>> full = new ArrayList<>();
+        TestInput fullInput = new TestInput();
+        party(new DeltaOutputPublisher(deltas, 4), input);
+        party((attendance, changed) -> full.add(new HashMap<>(attendance)), fullInput);
+        String[] names = {"Jerry", "George", "Elaine", "Kramer", "Newman", "soup nazi", "Forever alone"};
+        Boolean[] answers = {true, false, null};
+        Random random = new Random(6);
+        for (int e = 0; e < 100; e++) {
+            String name = names[random.nextInt(names.length)];
+            Boolean answer = answers[random.nextInt(answers.length)];
+            input.publish(name, answer);
+            fullInput.publish(name, answer);
+            Assert.assertEquals(full.get(full.size() - 1), deltas.attendance);
+        }
+    }
+}
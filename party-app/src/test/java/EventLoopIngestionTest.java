@@ -0,0 +1,260 @@
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.AttendanceEvent;
+import cs.technion.ac.il.sd.app.EventLoopIngestion;
+import cs.technion.ac.il.sd.app.PartyApp;
+import cs.technion.ac.il.sd.app.PartyModule;
+import cs.technion.ac.il.sd.app.PlatformThreadScheduler;
+import cs.technion.ac.il.sd.app.RsvpIngestion;
+import cs.technion.ac.il.sd.app.VirtualThreadScheduler;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Tests for {@link EventLoopIngestion}
+ */
+public class EventLoopIngestionTest {
+    class TestInput implements Input {
+        private final List<BiConsumer<String, Optional<Boolean>>> listener = new LinkedList<>();
+
+        @Override
+        public void listen(BiConsumer<String, Optional<Boolean>> listener) {
+            this.listener.add(listener);
+        }
+
+        public void publish(String name, Optional<Boolean> attending) {
+            this.listener.forEach(c -> c.accept(name, attending));
+        }
+    }
+
+    private static final int PRODUCERS = 4;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final TestInput input = new TestInput();
+
+    /**
+     * Publishes events from PRODUCERS threads at once, and waits for all of them to end.
+     */
+    private static void publishConcurrently(TestInput input, List<List<String>> names,
+                                            List<List<Optional<Boolean>>> attendances) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < names.size(); p++) {
+            int producer = p;
+            threads.add(new Thread(() -> {
+                for (int e = 0; e < names.get(producer).size(); e++)
+                    input.publish(names.get(producer).get(e), attendances.get(producer).get(e));
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads)
+            thread.join();
+    }
+
+    /**
+     * Asserts that loop delivers the events of every producer in the order they were published, on one thread, in
+     * batches of at most maxBatch events.
+     */
+    private void assertDeliversInOrder(EventLoopIngestion loop, int maxBatch) throws InterruptedException {
+        List<String> delivered = new ArrayList<>();
+        Set<Thread> writers = new HashSet<>();
+        List<Integer> sizes = new ArrayList<>();
+        loop.listen(input, batch -> {
+            writers.add(Thread.currentThread());
+            sizes.add(batch.size());
+            for (AttendanceEvent event : batch)
+                delivered.add(event.getName());
+        });
+        List<List<String>> names = new ArrayList<>();
+        List<List<Optional<Boolean>>> attendances = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            names.add(new ArrayList<>());
+            attendances.add(new ArrayList<>());
+            for (int e = 0; e < 500; e++) {
+                names.get(p).add(p + ":" + e);
+                attendances.get(p).add(Optional.empty());
+            }
+        }
+        publishConcurrently(input, names, attendances);
+        loop.awaitIdle();
+        loop.close();
+
+        Assert.assertEquals(1, writers.size());
+        Assert.assertEquals(PRODUCERS * 500, delivered.size());
+        for (int size : sizes)
+            Assert.assertTrue(size >= 1 && size <= maxBatch);
+        int[] next = new int[PRODUCERS];
+        for (String name : delivered) {
+            int producer = Integer.parseInt(name.substring(0, name.indexOf(':')));
+            Assert.assertEquals(producer + ":" + next[producer]++, name);
+        }
+    }
+
+    private File randomConfiguration(Random random, int size, int maxDependencies) throws IOException {
+        File file = folder.newFile();
+        try (PrintWriter writer = new PrintWriter(file)) {
+            for (int i = 0; i < size; i++) {
+                StringBuilder line = new StringBuilder("v" + i);
+                int dependencies = random.nextInt(maxDependencies + 1);
+                for (int d = 0; d < dependencies; d++)
+                    line.append(", v").append(random.nextInt(size));
+                writer.println(line);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * @return - every attendance the party outputs while its file is processed by a party of module.
+     */
+    private List<Map<String, Attendance>> processFile(Module module, File file, Input input) {
+        List<Map<String, Attendance>> outputs = Collections.synchronizedList(new ArrayList<>());
+        Guice.createInjector(Modules.override(new PartyModule()).with(module, new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Input.class).toInstance(input);
+                bind(Output.class).toInstance(outputs::add);
+            }
+        })).getInstance(PartyApp.class).processFile(file);
+        return outputs;
+    }
+
+    /**
+     * Every producer owns its own invitees, so the final declarations, and with them the final attendance, do not
+     * depend on how the producers interleave: a sequential replay of one producer after the other must agree.
+     */
+    private void assertConcurrentProducersMatchReplay(EventLoopIngestion loop, long seed) throws Exception {
+        int size = 200;
+        Random random = new Random(seed);
+        File file = randomConfiguration(random, size, 3);
+        List<List<String>> names = new ArrayList<>();
+        List<List<Optional<Boolean>>> attendances = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            names.add(new ArrayList<>());
+            attendances.add(new ArrayList<>());
+            for (int e = 0; e < 300; e++) {
+                int choice = random.nextInt(3);
+                names.get(p).add("v" + (random.nextInt(size / PRODUCERS) * PRODUCERS + p));
+                attendances.get(p).add(choice == 0 ? Optional.empty() : Optional.of(choice == 1));
+            }
+        }
+
+        TestInput input = new TestInput();
+        List<Map<String, Attendance>> outputs = processFile(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(RsvpIngestion.class).toInstance(loop);
+            }
+        }, file, input);
+        publishConcurrently(input, names, attendances);
+        loop.awaitIdle();
+        loop.close();
+
+        TestInput replay = new TestInput();
+        List<Map<String, Attendance>> replayed = processFile(Modules.EMPTY_MODULE, file, replay);
+        for (int p = 0; p < PRODUCERS; p++)
+            for (int e = 0; e < names.get(p).size(); e++)
+                replay.publish(names.get(p).get(e), attendances.get(p).get(e));
+        Assert.assertEquals(replayed.get(replayed.size() - 1), outputs.get(outputs.size() - 1));
+    }
+
+    @Test
+    public void deliversInOrderOnOneThread() throws InterruptedException {
+        assertDeliversInOrder(new EventLoopIngestion(new PlatformThreadScheduler()), 1);
+    }
+
+    @Test
+    public void concurrentProducersMatchASequentialReplay() throws Exception {
+        for (long seed = 0; seed < 3; seed++)
+            assertConcurrentProducersMatchReplay(new EventLoopIngestion(new PlatformThreadScheduler()), seed);
+    }
+
+    @Test
+    public void batchesOnAVirtualThread() throws InterruptedException {
+        assertDeliversInOrder(new EventLoopIngestion(new VirtualThreadScheduler(), 64), 64);
+    }
+
+    @Test
+    public void concurrentProducersInBatchesMatchASequentialReplay() throws Exception {
+        for (long seed = 0; seed < 3; seed++)
+            assertConcurrentProducersMatchReplay(new EventLoopIngestion(new VirtualThreadScheduler(), 64), seed);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void servesASingleListener() {
+        try (EventLoopIngestion loop = new EventLoopIngestion(new PlatformThreadScheduler())) {
+            loop.listen(input, batch -> { });
+            loop.listen(input, batch -> { });
+        }
+    }
+
+    @Test
+    public void reportsAFailureOnce() throws InterruptedException {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        try (EventLoopIngestion loop = new EventLoopIngestion(new PlatformThreadScheduler())) {
+            loop.listen(input, batch -> {
+                if (fail.getAndSet(false))
+                    throw new IllegalArgumentException();
+            });
+            input.publish("v0", Optional.empty());
+            try {
+                loop.awaitIdle();
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+            input.publish("v1", Optional.empty());
+            loop.awaitIdle();
+        }
+    }
+
+    @Test
+    public void awaitIdleReturnsOnceClosed() throws InterruptedException {
+        CountDownLatch delivering = new CountDownLatch(1);
+        EventLoopIngestion loop = new EventLoopIngestion(new PlatformThreadScheduler());
+        loop.listen(input, batch -> {
+            delivering.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        input.publish("v0", Optional.empty());
+        input.publish("v1", Optional.empty());
+        delivering.await();
+        loop.close();
+        try {
+            loop.awaitIdle();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("1 events"));
+        }
+        try {
+            input.publish("v2", Optional.empty());
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // closed
+        }
+    }
+}
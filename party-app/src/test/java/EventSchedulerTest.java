@@ -0,0 +1,69 @@
+import cs.technion.ac.il.sd.app.EventScheduler;
+import cs.technion.ac.il.sd.app.PlatformThreadScheduler;
+import cs.technion.ac.il.sd.app.VirtualThreadScheduler;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link EventScheduler} implementations
+ */
+public class EventSchedulerTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    private static Thread runs(EventScheduler $) throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        Thread thread = $.start("party-loop", ran::countDown);
+        Assert.assertTrue(ran.await(5, TimeUnit.SECONDS));
+        thread.join();
+        Assert.assertEquals("party-loop", thread.getName());
+        Assert.assertTrue(thread.isDaemon());
+        return thread;
+    }
+
+    @Test
+    public void platformThreads() throws Exception {
+        Thread thread = runs(new PlatformThreadScheduler());
+        if (VirtualThreadScheduler.isSupported())
+            Assert.assertFalse(isVirtual(thread));
+    }
+
+    @Test
+    public void virtualThreadsOrFallback() throws Exception {
+        Thread thread = runs(new VirtualThreadScheduler());
+        if (VirtualThreadScheduler.isSupported())
+            Assert.assertTrue(isVirtual(thread));
+    }
+
+    @Test
+    public void manyIdleLoops() throws InterruptedException {
+        EventScheduler $ = new VirtualThreadScheduler();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(200);
+        Thread[] threads = new Thread[200];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = $.start("idle-" + i, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        for (Thread thread : threads)
+            thread.join();
+    }
+}
@@ -0,0 +1,203 @@
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.Configuration;
+import cs.technion.ac.il.sd.app.LayerEvaluator;
+import cs.technion.ac.il.sd.app.PartyApp;
+import cs.technion.ac.il.sd.app.PartyModule;
+import cs.technion.ac.il.sd.app.SequentialLayerEvaluator;
+import cs.technion.ac.il.sd.library.Graph;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks that {@link cs.technion.ac.il.sd.app.SimplePartyApp} yields exactly what a full recompute over the
+ * topological sort of the graph yields, on random graphs with cycles.
+ */
+public class IncrementalAttendanceTest {
+    class TestInput implements Input {
+        private final List<BiConsumer<String, Optional<Boolean>>> listener = new LinkedList<>();
+
+        @Override
+        public void listen(BiConsumer<String, Optional<Boolean>> listener) {
+            this.listener.add(listener);
+        }
+
+        public void publish(String name, Optional<Boolean> attending) {
+            this.listener.forEach(c -> c.accept(name, attending));
+        }
+    }
+
+    /**
+     * The attendance calculation as it was before it became incremental: everything is recomputed on every event.
+     */
+    private static class FullRecompute {
+        private final Configuration configuration;
+        private final Graph<String, String> graph = new Graph<>();
+        private final Map<String, Attendance> attendance = new HashMap<>();
+
+        FullRecompute(Configuration configuration) {
+            this.configuration = configuration;
+            configuration.getInvitees().forEach(i -> graph.addVertex(i, i));
+            configuration.getInvitees().forEach(i -> graph.addEdgesTo(i, configuration.getDependenciesOf(i)));
+            configuration.getInvitees().forEach(i -> attendance.put(i, Attendance.UNKNOWN));
+        }
+
+        Map<String, Attendance> publish(String invitee, Optional<Boolean> newAttendance) {
+            if (newAttendance.isPresent())
+                graph.removeIncomingEdgesOf(invitee);
+            else if (declared(invitee))
+                graph.addEdgesTo(invitee, configuration.getDependenciesOf(invitee));
+            attendance.put(invitee, !newAttendance.isPresent() ? Attendance.UNKNOWN
+                    : newAttendance.get() ? Attendance.ATTENDING : Attendance.NOT_ATTENDING);
+
+            attendance.replaceAll((i, a) -> declared(i) ? a : Attendance.UNKNOWN);
+            graph.toposort(this::calculate);
+            return new HashMap<>(attendance);
+        }
+
+        private void calculate(String invitee) {
+            attendance.compute(invitee, (i, a) -> declared(i) ? a : byDependencies(i));
+            if (attendance.get(invitee) == Attendance.NOT_ATTENDING)
+                graph.getAllReachableFrom(invitee).stream()
+                        .filter(x -> !declared(x))
+                        .forEach(x -> attendance.put(x, Attendance.PROBABLY_NOT_ATTENDING));
+        }
+
+        private Attendance byDependencies(String invitee) {
+            Set<String> dependencies = configuration.getDependenciesOf(invitee);
+            if (!dependencies.isEmpty() && dependencies.stream().map(attendance::get)
+                    .allMatch(a -> a == Attendance.ATTENDING || a == Attendance.PROBABLY_ATTENDING))
+                return Attendance.PROBABLY_ATTENDING;
+            if (dependencies.stream().map(attendance::get)
+                    .anyMatch(a -> a == Attendance.NOT_ATTENDING || a == Attendance.PROBABLY_NOT_ATTENDING))
+                return Attendance.PROBABLY_NOT_ATTENDING;
+            return Attendance.UNKNOWN;
+        }
+
+        private boolean declared(String invitee) {
+            return attendance.get(invitee) == Attendance.ATTENDING || attendance.get(invitee) == Attendance.NOT_ATTENDING;
+        }
+    }
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File randomConfiguration(Random random, int size, int maxDependencies) throws IOException {
+        File file = folder.newFile();
+        try (PrintWriter writer = new PrintWriter(file)) {
+            for (int i = 0; i < size; i++) {
+                StringBuilder line = new StringBuilder("v" + i);
+                int dependencies = random.nextInt(maxDependencies + 1);
+                for (int d = 0; d < dependencies; d++)
+                    line.append(", v").append(random.nextInt(size));
+                writer.println(line);
+            }
+        }
+        return file;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArgumentCaptor<Map<String, Attendance>> attendanceCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(Map.class);
+    }
+
+    private void assertSameAsFullRecompute(long seed, int size, int maxDependencies, int events) throws IOException {
+        Random random = new Random(seed);
+        File file = randomConfiguration(random, size, maxDependencies);
+
+        TestInput input = new TestInput();
+        Output output = Mockito.mock(Output.class);
+        Injector injector = Guice.createInjector(new PartyModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Output.class).toInstance(output);
+                bind(Input.class).toInstance(input);
+            }
+        });
+        injector.getInstance(PartyApp.class).processFile(file);
+        FullRecompute expected = new FullRecompute(Configuration.fromFile(file));
+
+        List<String> invitees = expected.configuration.getInvitees().stream().sorted().collect(Collectors.toList());
+        List<Map<String, Attendance>> expectedResults = new ArrayList<>();
+        for (int e = 0; e < events; e++) {
+            String invitee = invitees.get(random.nextInt(invitees.size()));
+            int choice = random.nextInt(3);
+            Optional<Boolean> attendance = choice == 0 ? Optional.empty() : Optional.of(choice == 1);
+            input.publish(invitee, attendance);
+            expectedResults.add(expected.publish(invitee, attendance));
+        }
+
+        ArgumentCaptor<Map<String, Attendance>> captor = attendanceCaptor();
+        verify(output, atLeastOnce()).attendance(captor.capture());
+        Assert.assertEquals(expectedResults, captor.getAllValues());
+    }
+
+    @Test
+    public void sparseAcyclicLookingGraphs() throws IOException {
+        for (long seed = 0; seed < 20; seed++)
+            assertSameAsFullRecompute(seed, 30, 1, 60);
+    }
+
+    @Test
+    public void denseCyclicGraphs() throws IOException {
+        for (long seed = 0; seed < 20; seed++)
+            assertSameAsFullRecompute(seed, 25, 4, 80);
+    }
+
+    @Test
+    public void largeGraph() throws IOException {
+        assertSameAsFullRecompute(42, 400, 2, 200);
+    }
+
+    /**
+     * @return - how many invitees each RSVP to a party of small.txt recomputes: the one who answered, and whoever
+     * depends on them and has not answered.
+     */
+    private List<Integer> evaluatedPerEvent(String... declarations) {
+        TestInput input = new TestInput();
+        List<Integer> evaluated = new ArrayList<>();
+        LayerEvaluator sequential = new SequentialLayerEvaluator();
+        Guice.createInjector(Modules.override(new PartyModule()).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Output.class).toInstance(Mockito.mock(Output.class));
+                bind(Input.class).toInstance(input);
+                bind(LayerEvaluator.class).toInstance((order, layerEnds, layers, evaluation) -> {
+                    evaluated.add(layers == 0 ? 0 : layerEnds[layers - 1]);
+                    sequential.evaluate(order, layerEnds, layers, evaluation);
+                });
+            }
+        })).getInstance(PartyApp.class).processFile(new File(getClass().getResource("small.txt").getFile()));
+        for (String name : declarations)
+            input.publish(name, Optional.of(true));
+        return evaluated;
+    }
+
+    @Test
+    public void recomputesOnlyTheChangeAndWhoDependsOnIt() {
+        Assert.assertEquals(Arrays.asList(1, 2, 1, 2), evaluatedPerEvent("Forever alone", "Elaine", "Jerry", "Newman"));
+    }
+}
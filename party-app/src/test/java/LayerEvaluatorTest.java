@@ -0,0 +1,166 @@
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.util.Modules;
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.LayerEvaluator;
+import cs.technion.ac.il.sd.app.ParallelLayerEvaluator;
+import cs.technion.ac.il.sd.app.PartyApp;
+import cs.technion.ac.il.sd.app.PartyModule;
+import cs.technion.ac.il.sd.app.SequentialLayerEvaluator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Tests for {@link LayerEvaluator} implementations
+ */
+public class LayerEvaluatorTest {
+    class TestInput implements Input {
+        private final List<BiConsumer<String, Optional<Boolean>>> listener = new LinkedList<>();
+
+        @Override
+        public void listen(BiConsumer<String, Optional<Boolean>> listener) {
+            this.listener.add(listener);
+        }
+
+        public void publish(String name, Optional<Boolean> attending) {
+            this.listener.forEach(c -> c.accept(name, attending));
+        }
+    }
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Layer i has i + 1 invitees per size, whose ids are in layer order.
+     */
+    private static int[] layerEnds(int layers, int size) {
+        int[] ends = new int[layers];
+        for (int i = 0, end = 0; i < layers; i++)
+            ends[i] = end += (i + 1) * size;
+        return ends;
+    }
+
+    private static int[] order(int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        return order;
+    }
+
+    @Test
+    public void sequentialEvaluatesInOrder() {
+        int[] ends = layerEnds(4, 3);
+        int[] order = order(ends[3]);
+        List<Integer> evaluated = new ArrayList<>();
+        new SequentialLayerEvaluator().evaluate(order, ends, 4, evaluated::add);
+        for (int i = 0; i < order.length; i++)
+            Assert.assertEquals(i, (int) evaluated.get(i));
+        Assert.assertEquals(order.length, evaluated.size());
+    }
+
+    @Test
+    public void noLayersEvaluateNothing() {
+        for (LayerEvaluator $ : Arrays.asList(new SequentialLayerEvaluator(), new ParallelLayerEvaluator(pool, 1)))
+            $.evaluate(new int[0], new int[0], 0, id -> Assert.fail());
+    }
+
+    @Test
+    public void parallelEvaluatesEveryInviteeOnceAndLayerAfterLayer() {
+        int layers = 6;
+        int[] ends = layerEnds(layers, 50);
+        int[] order = order(ends[layers - 1]);
+        Map<Integer, Integer> counts = new ConcurrentHashMap<>();
+        AtomicInteger done = new AtomicInteger();
+        List<Integer> early = Collections.synchronizedList(new ArrayList<>());
+        new ParallelLayerEvaluator(pool, 16).evaluate(order, ends, layers, id -> {
+            int layer = 0;
+            while (ends[layer] <= id)
+                layer++;
+            if (done.get() < (layer == 0 ? 0 : ends[layer - 1]))
+                early.add(id);
+            counts.merge(id, 1, Integer::sum);
+            done.incrementAndGet();
+        });
+        Assert.assertEquals("evaluated before their earlier layers ended", Collections.emptyList(), early);
+        Assert.assertEquals(order.length, counts.size());
+        counts.values().forEach(count -> Assert.assertEquals(1, (int) count));
+    }
+
+    @Test
+    public void smallLayersStayOnTheCallingThread() {
+        int[] ends = layerEnds(3, 2);
+        Set<Thread> threads = new HashSet<>();
+        new ParallelLayerEvaluator(pool, 100).evaluate(order(ends[2]), ends, 3, id -> threads.add(Thread.currentThread()));
+        Assert.assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    private File randomConfiguration(Random random, int size, int maxDependencies) throws IOException {
+        File file = folder.newFile();
+        try (PrintWriter writer = new PrintWriter(file)) {
+            for (int i = 0; i < size; i++) {
+                StringBuilder line = new StringBuilder("v" + i);
+                int dependencies = random.nextInt(maxDependencies + 1);
+                for (int d = 0; d < dependencies; d++)
+                    line.append(", v").append(random.nextInt(size));
+                writer.println(line);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * @return - what a party that evaluates its layers with evaluator outputs for random events.
+     */
+    private List<Map<String, Attendance>> party(LayerEvaluator evaluator, File file, long seed, int events) {
+        TestInput input = new TestInput();
+        List<Map<String, Attendance>> outputs = new ArrayList<>();
+        Guice.createInjector(Modules.override(new PartyModule()).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Input.class).toInstance(input);
+                bind(Output.class).toInstance(outputs::add);
+                bind(LayerEvaluator.class).toInstance(evaluator);
+            }
+        })).getInstance(PartyApp.class).processFile(file);
+        Random random = new Random(seed);
+        for (int e = 0; e < events; e++) {
+            int choice = random.nextInt(3);
+            input.publish("v" + random.nextInt(400), choice == 0 ? Optional.empty() : Optional.of(choice == 1));
+        }
+        return outputs;
+    }
+
+    @Test
+    public void partiesAgreeWithTheSequentialEvaluator() throws IOException {
+        for (long seed = 0; seed < 5; seed++) {
+            File file = randomConfiguration(new Random(seed), 400, 2);
+            Assert.assertEquals(party(new SequentialLayerEvaluator(), file, seed, 200),
+                    party(new ParallelLayerEvaluator(pool, 2), file, seed, 200));
+        }
+    }
+}
@@ -87,6 +87,22 @@ public class PartyAppTest {
         ));
     }
 
+    @Test
+    public void strangersAreIgnored() {
+        processFile("simple");
+        input.publish("Tyrion Lannister", true);
+        input.publish("Cersei Lannister", null);
+        verify(output, Mockito.times(2)).attendance(map(
+                entry("Arya Stark", Attendance.UNKNOWN),
+                entry("Bran Stark", Attendance.UNKNOWN),
+                entry("Ned Stark", Attendance.UNKNOWN),
+                entry("Sansa Stark", Attendance.UNKNOWN),
+                entry("Brienne of Tarth", Attendance.UNKNOWN),
+                entry("Jon Snow", Attendance.UNKNOWN),
+                entry("Hodor", Attendance.UNKNOWN)
+        ));
+    }
+
     @Test
     public void simpleDependencyUnknown() {
         processFile("simple");
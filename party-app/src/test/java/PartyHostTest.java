@@ -0,0 +1,87 @@
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.PartyHost;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link PartyHost}
+ */
+public class PartyHostTest {
+    class TestInput implements Input {
+        private final List<BiConsumer<String, Optional<Boolean>>> listener = new LinkedList<>();
+
+        @Override
+        public void listen(BiConsumer<String, Optional<Boolean>> listener) {
+            this.listener.add(listener);
+        }
+
+        public void publish(String name, Optional<Boolean> attending) {
+            this.listener.forEach(c -> c.accept(name, attending));
+        }
+    }
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private PartyHost $ = new PartyHost();
+
+    private File copyOf(String name) throws IOException {
+        File file = folder.newFile();
+        Files.copy(new File(getClass().getResource(name + ".txt").getFile()).toPath(), file.toPath(),
+                java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    private static Map<String, Attendance> attendance(String... nameAttendancePairs) {
+        Map<String, Attendance> attendance = new HashMap<>();
+        for (int i = 0; i < nameAttendancePairs.length; i += 2)
+            attendance.put(nameAttendancePairs[i], Attendance.valueOf(nameAttendancePairs[i + 1]));
+        return attendance;
+    }
+
+    @Test
+    public void identicalConfigurationsAreShared() throws IOException {
+        TestInput first = new TestInput(), second = new TestInput(), other = new TestInput();
+        $.open(copyOf("simple"), first, Mockito.mock(Output.class));
+        $.open(copyOf("simple"), second, Mockito.mock(Output.class));
+        Assert.assertEquals(1, $.sharedConfigurations());
+        $.open(copyOf("small"), other, Mockito.mock(Output.class));
+        Assert.assertEquals(2, $.sharedConfigurations());
+    }
+
+    @Test
+    public void partiesKeepTheirOwnAttendance() throws IOException {
+        TestInput first = new TestInput(), second = new TestInput();
+        Output firstOutput = Mockito.mock(Output.class), secondOutput = Mockito.mock(Output.class);
+        $.open(copyOf("small"), first, firstOutput);
+        $.open(copyOf("small"), second, secondOutput);
+
+        first.publish("George", Optional.of(true));
+        first.publish("Elaine", Optional.of(true));
+        second.publish("George", Optional.of(false));
+
+        verify(firstOutput).attendance(attendance("Jerry", "PROBABLY_ATTENDING", "George", "ATTENDING",
+                "Elaine", "ATTENDING", "Kramer", "UNKNOWN", "soup nazi", "UNKNOWN", "Newman", "UNKNOWN",
+                "Forever alone", "UNKNOWN"));
+        verify(secondOutput).attendance(attendance("Jerry", "PROBABLY_NOT_ATTENDING", "George", "NOT_ATTENDING",
+                "Elaine", "UNKNOWN", "Kramer", "UNKNOWN", "soup nazi", "UNKNOWN", "Newman", "UNKNOWN",
+                "Forever alone", "UNKNOWN"));
+    }
+}
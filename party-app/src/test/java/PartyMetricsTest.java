@@ -0,0 +1,159 @@
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.util.Modules;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.JmxPartyMetrics;
+import cs.technion.ac.il.sd.app.NoPartyMetrics;
+import cs.technion.ac.il.sd.app.PartyApp;
+import cs.technion.ac.il.sd.app.PartyMetrics;
+import cs.technion.ac.il.sd.app.PartyModule;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+import org.mockito.Mockito;
+
+import javax.management.MBeanServer;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.File;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Tests for {@link JmxPartyMetrics}
+ */
+public class PartyMetricsTest {
+    class TestInput implements Input {
+        private final List<BiConsumer<String, Optional<Boolean>>> listener = new LinkedList<>();
+
+        @Override
+        public void listen(BiConsumer<String, Optional<Boolean>> listener) {
+            this.listener.add(listener);
+        }
+
+        public void publish(String name, Boolean attending) {
+            this.listener.forEach(c -> c.accept(name, Optional.ofNullable(attending)));
+        }
+    }
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final TestInput input = new TestInput();
+    private final JmxPartyMetrics metrics = new JmxPartyMetrics("metrics-test");
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    private final AbstractModule io = new AbstractModule() {
+        @Override
+        protected void configure() {
+            bind(Input.class).toInstance(input);
+            bind(Output.class).toInstance(Mockito.mock(Output.class));
+        }
+    };
+
+    private Injector injector() {
+        return Guice.createInjector(Modules.override(new PartyModule(), io).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(PartyMetrics.class).toInstance(metrics);
+            }
+        }));
+    }
+
+    private PartyApp processFile(String name) {
+        return processFile(new File(getClass().getResource(name + ".txt").getFile()));
+    }
+
+    private PartyApp processFile(File file) {
+        PartyApp party = injector().getInstance(PartyApp.class);
+        party.processFile(file);
+        return party;
+    }
+
+    private Object attribute(String attribute) throws Exception {
+        return server.getAttribute(metrics.getObjectName(), attribute);
+    }
+
+    private long count(PartyMetrics.Stage stage) throws Exception {
+        CompositeData row = ((TabularData) attribute("Stages")).get(new Object[]{stage.name()});
+        return (Long) ((CompositeData) row.get("value")).get("count");
+    }
+
+    private int attendance(String attendance) throws Exception {
+        return (Integer) ((TabularData) attribute("Attendance")).get(new Object[]{attendance}).get("value");
+    }
+
+    @After
+    public void unregister() {
+        metrics.close();
+    }
+
+    @Test
+    public void noMetricsByDefault() {
+        Assert.assertTrue(Guice.createInjector(new PartyModule(), io).getInstance(PartyMetrics.class)
+                instanceof NoPartyMetrics);
+    }
+
+    @Test
+    public void gaugesOfTheConfiguration() throws Exception {
+        processFile("small");
+        Assert.assertEquals(7, attribute("Invitees"));
+        Assert.assertEquals(4, attribute("Edges"));
+        Assert.assertEquals(0, attendance("UNKNOWN"));
+    }
+
+    @Test
+    public void edgesAreBetweenInvitees() throws Exception {
+        File file = folder.newFile();
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("a, , b");
+        }
+        processFile(file);
+        Assert.assertEquals(2, attribute("Invitees"));
+        Assert.assertEquals(1, attribute("Edges"));
+    }
+
+    @Test
+    public void everyStageOfEveryRsvp() throws Exception {
+        processFile("small");
+        input.publish("Elaine", true);
+        input.publish("Forever alone", false);
+        input.publish("Kramer", null);
+        for (PartyMetrics.Stage stage : PartyMetrics.Stage.values())
+            Assert.assertEquals(stage.name(), 3, count(stage));
+        Assert.assertEquals(1, attendance("ATTENDING"));
+        Assert.assertEquals(1, attendance("NOT_ATTENDING"));
+        Assert.assertEquals(5, attendance("UNKNOWN"));
+    }
+
+    @Test
+    public void unregisteredWhenThePartyIsClosed() throws Exception {
+        PartyApp party = processFile("small");
+        input.publish("Elaine", true);
+        party.close();
+        Assert.assertFalse(server.isRegistered(metrics.getObjectName()));
+        input.publish("Kramer", true);
+        Assert.assertEquals(1, metrics.getStages().get(PartyMetrics.Stage.UPDATE_ATTENDANCE.name()).getCount());
+    }
+
+    @Test
+    public void unregisteredWhenClosed() throws Exception {
+        metrics.close();
+        Assert.assertFalse(server.isRegistered(metrics.getObjectName()));
+        try (JmxPartyMetrics again = new JmxPartyMetrics("metrics-test")) {
+            Assert.assertTrue(server.isRegistered(again.getObjectName()));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.AttendancePublisher;
+import cs.technion.ac.il.sd.app.PartyApp;
+import cs.technion.ac.il.sd.app.PartyModule;
+import cs.technion.ac.il.sd.app.SnapshotOutputPublisher;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Tests for {@link SnapshotOutputPublisher}, and for the copies the default publisher outputs instead
+ */
+public class SnapshotOutputPublisherTest {
+    class TestInput implements Input {
+        private final List<BiConsumer<String, Optional<Boolean>>> listener = new LinkedList<>();
+
+        @Override
+        public void listen(BiConsumer<String, Optional<Boolean>> listener) {
+            this.listener.add(listener);
+        }
+
+        public void publish(String name, Boolean attending) {
+            this.listener.forEach(c -> c.accept(name, Optional.ofNullable(attending)));
+        }
+    }
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    private final TestInput input = new TestInput();
+    private final List<Map<String, Attendance>> outputs = new ArrayList<>();
+
+    private void processFile(Module module, Output output) {
+        Guice.createInjector(Modules.override(module).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(Input.class).toInstance(input);
+                bind(Output.class).toInstance(output);
+            }
+        })).getInstance(PartyApp.class).processFile(new File(getClass().getResource("small.txt").getFile()));
+    }
+
+    private void processFile() {
+        processFile(Modules.override(new PartyModule()).with(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(AttendancePublisher.class).to(SnapshotOutputPublisher.class);
+            }
+        }), outputs::add);
+    }
+
+    @Test
+    public void earlierSnapshotsDoNotChange() {
+        processFile();
+        input.publish("George", true);
+        Map<String, Attendance> first = new HashMap<>(outputs.get(0));
+        input.publish("Elaine", true);
+        input.publish("George", false);
+        Assert.assertEquals(first, outputs.get(0));
+        Assert.assertEquals(Attendance.ATTENDING, outputs.get(0).get("George"));
+        Assert.assertEquals(Attendance.NOT_ATTENDING, outputs.get(2).get("George"));
+        Assert.assertEquals(Attendance.PROBABLY_NOT_ATTENDING, outputs.get(2).get("Jerry"));
+    }
+
+    @Test
+    public void snapshotsReadLikeMaps() {
+        processFile();
+        input.publish("George", true);
+        Map<String, Attendance> $ = outputs.get(0);
+        Assert.assertEquals(7, $.size());
+        Assert.assertTrue($.containsKey("soup nazi"));
+        Assert.assertFalse($.containsKey("Tyrion Lannister"));
+        Assert.assertNull($.get("Tyrion Lannister"));
+        Assert.assertEquals($, new HashMap<>($));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotsCannotBeChanged() {
+        processFile();
+        input.publish("George", true);
+        outputs.get(0).put("George", Attendance.NOT_ATTENDING);
+    }
+
+    @Test
+    public void snapshotsCanBeReadFromAnotherThread() throws InterruptedException {
+        processFile();
+        input.publish("George", true);
+        Map<String, Attendance> $ = outputs.get(0);
+        List<Map<String, Attendance>> read = new ArrayList<>();
+        Thread reader = new Thread(() -> read.add(new HashMap<>($)));
+        reader.start();
+        for (int i = 0; i < 100; i++)
+            input.publish("Elaine", i % 2 == 0);
+        reader.join();
+        Assert.assertEquals(new HashMap<>($), read.get(0));
+    }
+
+    @Test
+    public void defaultOutputsMayChangeTheirMaps() {
+        processFile(new PartyModule(), attendance -> {
+            attendance.remove("Jerry");
+            outputs.add(attendance);
+        });
+        input.publish("George", true);
+        input.publish("Elaine", false);
+        outputs.forEach(Map::clear);
+        input.publish("Kramer", null);
+        Assert.assertEquals(6, outputs.get(outputs.size() - 1).size());
+    }
+}
@@ -0,0 +1,108 @@
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import cs.technion.ac.il.sd.Attendance;
+import cs.technion.ac.il.sd.Input;
+import cs.technion.ac.il.sd.Output;
+import cs.technion.ac.il.sd.app.AttendanceEvent;
+import cs.technion.ac.il.sd.app.PartyApp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Drives a party through its Input one RSVP at a time and measures how long each one takes until the publish returns.
+ * The party must publish on the thread of its Input, as with the default PerEventIngestion, so that the time of the
+ * publish is the time until the attendance reached the Output.
+ */
+public class PartyLoad {
+
+  private static class LoadInput implements Input {
+    private final List<BiConsumer<String, Optional<Boolean>>> listener = new LinkedList<>();
+
+    @Override
+    public void listen(BiConsumer<String, Optional<Boolean>> listener) {
+      this.listener.add(listener);
+    }
+
+    void publish(AttendanceEvent e) {
+      this.listener.forEach(c -> c.accept(e.getName(), e.getAttendance()));
+    }
+  }
+
+  private static class LoadOutput implements Output {
+    private int outputs;
+    private Map<String, Attendance> last;
+
+    @Override
+    public void attendance(Map<String, Attendance> attendance) {
+      outputs++;
+      last = attendance;
+    }
+  }
+
+  public static class Report {
+    public final int events;
+    public final int outputs;
+    public final Map<String, Attendance> lastAttendance;
+    private final long totalNanos;
+    private final long[] sortedNanos;
+
+    private Report(long[] nanos, long totalNanos, LoadOutput output) {
+      this.events = nanos.length;
+      this.outputs = output.outputs;
+      this.lastAttendance = output.last;
+      this.totalNanos = totalNanos;
+      this.sortedNanos = nanos.clone();
+      Arrays.sort(sortedNanos);
+    }
+
+    public double eventsPerSecond() {
+      return events * 1e9 / totalNanos;
+    }
+
+    /**
+     * @param p - between 0 and 1.
+     * @return - the p-th quantile of the per-event latency, in microseconds.
+     */
+    public double latencyMicros(double p) {
+      return sortedNanos[Math.min(events - 1, (int) Math.ceil(p * events) - 1)] / 1e3;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d events, %.0f events/sec, latency p50 %.1fus p99 %.1fus max %.1fus",
+          events, eventsPerSecond(), latencyMicros(0.5), latencyMicros(0.99), latencyMicros(1));
+    }
+  }
+
+  /**
+   * Loads the configuration of workload into a new party of module, then publishes its first events one by one.
+   * @param module - binds PartyApp and everything it needs, but for Input and Output.
+   * @param directory - where the configuration file is written.
+   */
+  public static Report run(Module module, PartyWorkload workload, int events, File directory) throws IOException {
+    LoadInput input = new LoadInput();
+    LoadOutput output = new LoadOutput();
+    PartyApp app = Guice.createInjector(module, new AbstractModule() {
+      @Override
+      protected void configure() {
+        bind(Input.class).toInstance(input);
+        bind(Output.class).toInstance(output);
+      }
+    }).getInstance(PartyApp.class);
+    app.processFile(workload.writeConfiguration(new File(directory, "party.txt")));
+
+    List<AttendanceEvent> stream = workload.events(events);
+    long[] nanos = new long[events];
+    long start = System.nanoTime();
+    for (int i = 0; i < events; i++) {
+      long before = System.nanoTime();
+      input.publish(stream.get(i));
+      nanos[i] = System.nanoTime() - before;
+    }
+    return new Report(nanos, System.nanoTime() - start, output);
+  }
+}
@@ -0,0 +1,66 @@
+import cs.technion.ac.il.sd.app.PartyModule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * End to end load of synthetic parties through the default PartyModule. Every RSVP must reach the output with the
+ * attendance of everyone. The report of a run is the message of its assertions, so a failure shows its latencies.
+ */
+public class PartyLoadTest {
+
+  private static final int EVENTS = 1000;
+
+  @Rule
+  public Timeout globalTimeout = Timeout.seconds(60);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private void load(PartyWorkload workload) throws IOException {
+    PartyLoad.Report report = PartyLoad.run(new PartyModule(), workload, EVENTS, folder.getRoot());
+    String message = workload + ": " + report;
+    assertEquals(message, EVENTS, report.outputs);
+    assertEquals(message, workload.size(), report.lastAttendance.size());
+  }
+
+  private static String read(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()));
+  }
+
+  @Test
+  public void sameWorkloadFromSameSeed() throws IOException {
+    PartyWorkload workload = new PartyWorkload(1, 500, 5, 2, 4, 0.05);
+    assertEquals(workload.events(100).get(99).getName(),
+        new PartyWorkload(1, 500, 5, 2, 4, 0.05).events(100).get(99).getName());
+    assertEquals(read(workload.writeConfiguration(folder.newFile())),
+        read(new PartyWorkload(1, 500, 5, 2, 4, 0.05).writeConfiguration(folder.newFile())));
+  }
+
+  @Test
+  public void shallowAndWide() throws IOException {
+    load(new PartyWorkload(1, 10_000, 2, 1, 1000, 0));
+  }
+
+  @Test
+  public void deep() throws IOException {
+    load(new PartyWorkload(2, 10_000, 100, 2, 2, 0));
+  }
+
+  @Test
+  public void denseDependencies() throws IOException {
+    load(new PartyWorkload(3, 10_000, 50, 8, 8, 0));
+  }
+
+  @Test
+  public void cyclic() throws IOException {
+    load(new PartyWorkload(4, 10_000, 50, 2, 2, 0.01));
+  }
+}
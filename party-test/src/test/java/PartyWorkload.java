@@ -0,0 +1,109 @@
+import cs.technion.ac.il.sd.app.AttendanceEvent;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * A synthetic party: a configuration file and a stream of RSVPs to it, both made from one seed, so every run of a
+ * workload is the same.
+ *
+ * The invitees are split into depth layers of the same size. Everyone out of the first layer depends on fanIn invitees
+ * of the layer before, picked among its first few, as many as it takes for each of them to have fanOut dependants on
+ * average. A cycleDensity fraction of the invitees also depends on someone in a later layer, which closes a cycle.
+ */
+public class PartyWorkload {
+  private final long seed;
+  private final int size;
+  private final int depth;
+  private final int fanIn;
+  private final int fanOut;
+  private final double cycleDensity;
+  private final int[][] dependencies;
+
+  public PartyWorkload(long seed, int size, int depth, int fanIn, int fanOut, double cycleDensity) {
+    if (size < 1 || depth < 1 || depth > size || fanIn < 0 || fanOut < 1 || cycleDensity < 0 || cycleDensity > 1)
+      throw new IllegalArgumentException("bad workload " + Arrays.asList(size, depth, fanIn, fanOut, cycleDensity));
+    this.seed = seed;
+    this.size = size;
+    this.depth = depth;
+    this.fanIn = fanIn;
+    this.fanOut = fanOut;
+    this.cycleDensity = cycleDensity;
+    this.dependencies = generate(new Random(seed));
+  }
+
+  public static String name(int id) {
+    return "guest" + id;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private int layerSize() {
+    return (size + depth - 1) / depth;
+  }
+
+  private int[][] generate(Random random) {
+    int layerSize = layerSize();
+    int window = Math.max(1, Math.min(layerSize, layerSize * fanIn / fanOut));
+    int[][] dependencies = new int[size][];
+    for (int id = 0; id < size; id++) {
+      int layer = id / layerSize;
+      int previous = (layer - 1) * layerSize;
+      int count = layer == 0 ? 0 : Math.min(fanIn, window);
+      int offset = random.nextInt(window);
+      boolean closesCycle = random.nextDouble() < cycleDensity && layer < (size - 1) / layerSize;
+      int[] row = new int[count + (closesCycle ? 1 : 0)];
+      for (int i = 0; i < count; i++)
+        row[i] = previous + (offset + i) % window;
+      if (closesCycle) {
+        int later = (layer + 1) * layerSize;
+        row[count] = later + random.nextInt(size - later);
+      }
+      dependencies[id] = row;
+    }
+    return dependencies;
+  }
+
+  /**
+   * Writes the configuration of this workload, one invitee per line.
+   */
+  public File writeConfiguration(File file) throws IOException {
+    try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+      for (int id = 0; id < size; id++) {
+        writer.write(name(id));
+        for (int d : dependencies[id]) {
+          writer.write(", ");
+          writer.write(name(d));
+        }
+        writer.write('\n');
+      }
+    }
+    return file;
+  }
+
+  /**
+   * @return - count RSVPs of invitees picked uniformly, each attending, not attending or unknown with the same odds.
+   */
+  public List<AttendanceEvent> events(int count) {
+    Random random = new Random(~seed);
+    List<AttendanceEvent> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int answer = random.nextInt(3);
+      events.add(new AttendanceEvent(name(random.nextInt(size)),
+          answer == 2 ? Optional.empty() : Optional.of(answer == 1)));
+    }
+    return events;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d invitees, depth %d, fan-in %d, fan-out %d, cycle density %.3f (seed %d)",
+        size, depth, fanIn, fanOut, cycleDensity, seed);
+  }
+}